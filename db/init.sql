@@ -32,14 +32,88 @@ $$;
 -- Only grant privileges if the user exists
 GRANT ALL PRIVILEGES ON DATABASE wallet_transfer TO transfer_user;
 
--- Only create the table if it does not exist
+-- Only create the table if it does not exist.
+-- TRANSFER is range partitioned by created_at so that retention drops whole partitions instead of deleting
+-- rows (see TransferPartitionManager, transfer.retention.mode=partition). Partitions are named
+-- transfer_pYYYYMMDD (daily) or transfer_pYYYYMMDDHH (hourly) and created ahead of time by the service;
+-- the default partition only catches rows outside of every created range.
 CREATE TABLE IF NOT EXISTS TRANSFER (
-    id BIGINT PRIMARY KEY DEFAULT nextval('transfer_id_seq'),
-    transfer_id VARCHAR(255) NOT NULL UNIQUE,
+    id BIGINT NOT NULL DEFAULT nextval('transfer_id_seq'),
+    transfer_id VARCHAR(255) NOT NULL,
     from_account_id BIGINT NOT NULL,
     to_account_id BIGINT NOT NULL,
     amount NUMERIC(19,2) NOT NULL,
     status VARCHAR(255) NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    version BIGINT DEFAULT 0
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+DO $$
+BEGIN
+   IF EXISTS (SELECT 1 FROM pg_class WHERE relname = 'transfer' AND relkind = 'p') THEN
+      CREATE TABLE IF NOT EXISTS TRANSFER_DEFAULT PARTITION OF TRANSFER DEFAULT;
+   END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_transfer_transfer_id ON TRANSFER (transfer_id);
+CREATE INDEX IF NOT EXISTS idx_transfer_created_at ON TRANSFER (created_at);
+-- Account history (TransferHistoryRepository): keyset scans per side in (created_at, id) order
+CREATE INDEX IF NOT EXISTS idx_transfer_from_account ON TRANSFER (from_account_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_transfer_to_account ON TRANSFER (to_account_id, created_at, id);
+-- Reconciler (TransferReconciler) and replay buffer (TransferReplayBuffer): the few transfers not yet
+-- finalized, walked in id order
+CREATE INDEX IF NOT EXISTS idx_transfer_unresolved ON TRANSFER (id) WHERE status IN ('pending', 'unknown', 'queued');
+
+-- Transactional outbox (transfer.async.dispatch=outbox): ledger calls owed for PENDING transfers, written in
+-- the same transaction as the transfer and leased by dispatchers with FOR UPDATE SKIP LOCKED
+CREATE TABLE IF NOT EXISTS TRANSFER_OUTBOX (
+    id BIGSERIAL PRIMARY KEY,
+    transfer_id VARCHAR(255) NOT NULL,
+    from_account_id BIGINT NOT NULL,
+    to_account_id BIGINT NOT NULL,
+    amount NUMERIC(19,2) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_transfer_outbox_available_at ON TRANSFER_OUTBOX (available_at, id);
+-- Lets the reconciler skip transfers the outbox still owns
+CREATE INDEX IF NOT EXISTS idx_transfer_outbox_transfer_id ON TRANSFER_OUTBOX (transfer_id);
+
+-- Unique constraints on a partitioned table must include the partition key, so transfer_id uniqueness
+-- is enforced here. The trigger below skips a TRANSFER insert whose key is taken, which keeps
+-- INSERT ... ON CONFLICT DO NOTHING claims reporting 0 rows for duplicates.
+CREATE TABLE IF NOT EXISTS TRANSFER_KEY (
+    transfer_id VARCHAR(255) PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
+
+CREATE INDEX IF NOT EXISTS idx_transfer_key_created_at ON TRANSFER_KEY (created_at);
+
+CREATE OR REPLACE FUNCTION transfer_claim_key() RETURNS trigger AS $$
+BEGIN
+   INSERT INTO transfer_key (transfer_id, created_at) VALUES (NEW.transfer_id, NEW.created_at) ON CONFLICT DO NOTHING;
+   IF NOT FOUND THEN
+      RETURN NULL;
+   END IF;
+   RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION transfer_release_key() RETURNS trigger AS $$
+BEGIN
+   DELETE FROM transfer_key WHERE transfer_id = OLD.transfer_id;
+   RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS transfer_claim_key ON TRANSFER;
+CREATE TRIGGER transfer_claim_key BEFORE INSERT ON TRANSFER
+   FOR EACH ROW EXECUTE FUNCTION transfer_claim_key();
+
+DROP TRIGGER IF EXISTS transfer_release_key ON TRANSFER;
+CREATE TRIGGER transfer_release_key AFTER DELETE ON TRANSFER
+   FOR EACH ROW EXECUTE FUNCTION transfer_release_key();
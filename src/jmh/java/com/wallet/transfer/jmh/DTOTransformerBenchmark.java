@@ -0,0 +1,44 @@
+package com.wallet.transfer.jmh;
+
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.transformer.DTOTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DTOTransformerBenchmark {
+    private Transfer transfer;
+
+    @Setup
+    public void setUp() {
+        transfer = new Transfer();
+        transfer.setId(42L);
+        transfer.setTransferId("3f2c8a4e-0d7b-4c61-9a55-2f0e8b1d6c3a");
+        transfer.setFromAccountId(1L);
+        transfer.setToAccountId(2L);
+        transfer.setAmount(new BigDecimal("10.00"));
+        transfer.setStatus("success");
+    }
+
+    @Benchmark
+    public TransferResultDTO transferResultDTO() {
+        return DTOTransformer.transferResultDTO(transfer);
+    }
+}
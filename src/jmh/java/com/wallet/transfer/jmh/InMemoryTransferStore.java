@@ -0,0 +1,100 @@
+package com.wallet.transfer.jmh;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.repository.TransferBatchRepository;
+import com.wallet.transfer.repository.TransferRepository;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the transfer table, so processor benchmarks measure this service's code
+ * rather than the database. Only the repository methods used by the transfer path are implemented.
+ */
+final class InMemoryTransferStore {
+    private final Map<String, Transfer> transfers = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    TransferRepository repository() {
+        return (TransferRepository) Proxy.newProxyInstance(TransferRepository.class.getClassLoader(),
+                new Class<?>[]{TransferRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "insertIfAbsent" -> insertIfAbsent((String) args[0], (Long) args[1], (Long) args[2], (BigDecimal) args[3], (String) args[4]);
+                    case "findByTransferId" -> Optional.ofNullable(transfers.get((String) args[0]));
+                    case "findByTransferIdIn" -> ((Collection<?>) args[0]).stream().map(transfers::get).filter(Objects::nonNull).toList();
+                    case "updateStatus" -> updateStatus((String) args[0], (String) args[1], (String) args[2]);
+                    case "deleteByTransferIdAndStatus" -> deleteIfStatus((String) args[0], (String) args[1]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryTransferRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    TransferBatchRepository batchRepository() {
+        return new TransferBatchRepository(null) {
+            @Override
+            public int[] insertIfAbsent(Map<String, TransferRequestDTO> requests) {
+                int[] inserted = new int[requests.size()];
+                int i = 0;
+                for (Map.Entry<String, TransferRequestDTO> entry : requests.entrySet()) {
+                    TransferRequestDTO request = entry.getValue();
+                    inserted[i++] = InMemoryTransferStore.this.insertIfAbsent(entry.getKey(), request.getFromAccountId(),
+                            request.getToAccountId(), request.getAmount(), "pending");
+                }
+                return inserted;
+            }
+
+            @Override
+            public int[] finalizeAndRelease(Map<String, String> statuses, Collection<String> released) {
+                int[] updated = new int[statuses.size()];
+                int i = 0;
+                for (Map.Entry<String, String> entry : statuses.entrySet()) {
+                    updated[i++] = updateStatus(entry.getKey(), "pending", entry.getValue());
+                }
+                released.forEach(transfers::remove);
+                return updated;
+            }
+        };
+    }
+
+    void remove(String transferId) {
+        transfers.remove(transferId);
+    }
+
+    private int insertIfAbsent(String transferId, Long fromAccountId, Long toAccountId, BigDecimal amount, String status) {
+        Transfer transfer = new Transfer();
+        transfer.setId(ids.incrementAndGet());
+        transfer.setTransferId(transferId);
+        transfer.setFromAccountId(fromAccountId);
+        transfer.setToAccountId(toAccountId);
+        transfer.setAmount(amount);
+        transfer.setStatus(status);
+        transfer.setVersion(0L);
+        return transfers.putIfAbsent(transferId, transfer) == null ? 1 : 0;
+    }
+
+    private int updateStatus(String transferId, String expectedStatus, String status) {
+        int[] updated = {0};
+        transfers.computeIfPresent(transferId, (key, transfer) -> {
+            if (transfer.getStatus().equals(expectedStatus)) {
+                transfer.setStatus(status);
+                transfer.setVersion(transfer.getVersion() + 1);
+                updated[0] = 1;
+            }
+            return transfer;
+        });
+        return updated[0];
+    }
+
+    private int deleteIfStatus(String transferId, String status) {
+        Transfer transfer = transfers.get(transferId);
+        return transfer != null && transfer.getStatus().equals(status) && transfers.remove(transferId, transfer) ? 1 : 0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.wallet.transfer.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request and response (de)serialization with a shared ObjectMapper, as done by Spring MVC and the ledger client.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferJsonBenchmark {
+    private ObjectWriter requestWriter;
+    private ObjectReader requestReader;
+    private ObjectWriter resultWriter;
+    private ObjectReader resultReader;
+    private TransferRequestDTO request;
+    private TransferResultDTO result;
+    private byte[] requestJson;
+    private byte[] resultJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        requestWriter = objectMapper.writerFor(TransferRequestDTO.class);
+        requestReader = objectMapper.readerFor(TransferRequestDTO.class);
+        resultWriter = objectMapper.writerFor(TransferResultDTO.class);
+        resultReader = objectMapper.readerFor(TransferResultDTO.class);
+        request = new TransferRequestDTO(1L, 2L, new BigDecimal("10.00"));
+        result = new TransferResultDTO();
+        result.setTransferId("3f2c8a4e-0d7b-4c61-9a55-2f0e8b1d6c3a");
+        result.setStatus("success");
+        requestJson = requestWriter.writeValueAsBytes(request);
+        resultJson = resultWriter.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() throws IOException {
+        return requestWriter.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public TransferRequestDTO deserializeRequest() throws IOException {
+        return requestReader.readValue(requestJson);
+    }
+
+    @Benchmark
+    public byte[] serializeResult() throws IOException {
+        return resultWriter.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public TransferResultDTO deserializeResult() throws IOException {
+        return resultReader.readValue(resultJson);
+    }
+}
@@ -0,0 +1,126 @@
+package com.wallet.transfer.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.transfer.client.LedgerClient;
+import com.wallet.transfer.config.ExecutorConfig;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.service.TransferMetrics;
+import com.wallet.transfer.service.TransferResultCache;
+import com.wallet.transfer.service.TransferDispatcher;
+import com.wallet.transfer.service.TransferReplayBuffer;
+import com.wallet.transfer.service.TransferService;
+import com.wallet.transfer.service.TransferServiceProcessor;
+import com.wallet.transfer.service.TransferSingleFlight;
+import com.wallet.transfer.util.BoundedExecutor;
+import com.wallet.transfer.util.StripedSerialExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The transfer path of {@link TransferServiceProcessor} and {@link TransferService#transferBatch} over an in-memory
+ * repository and a ledger that answers immediately, i.e. the CPU and allocation cost this service adds on top of
+ * the database and the ledger. Circuit breaker proxies are not involved.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferProcessorBenchmark {
+    private static final int BATCH_SIZE = 20;
+    private static final String DUPLICATE_KEY = "duplicate-key";
+
+    private final AtomicLong keys = new AtomicLong();
+    private InMemoryTransferStore store;
+    private TransferServiceProcessor processor;
+    private TransferService transferService;
+    private BoundedExecutor executor;
+    private TransferRequestDTO request;
+    private List<TransferRequestDTO> batchRequests;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryTransferStore();
+        LedgerClient ledgerClient = new LedgerClient(new RestTemplate(), "http://localhost", "/api/ledger/transfer") {
+            @Override
+            public TransferResultDTO transfer(TransferRequestDTO request, String idempotencyKey) {
+                TransferResultDTO result = new TransferResultDTO();
+                result.setTransferId(idempotencyKey);
+                result.setStatus("success");
+                return result;
+            }
+        };
+        TransferMetrics metrics = new TransferMetrics(new SimpleMeterRegistry());
+        processor = new TransferServiceProcessor(ledgerClient, store.repository(), store.batchRepository(),
+                new TransferResultCache(100_000, Duration.ofMinutes(10)), metrics, Duration.ofSeconds(2), 500,
+                new StaticListableBeanFactory().getBeanProvider(TransferReplayBuffer.class));
+        executor = new ExecutorConfig().transferExecutor(false, 32);
+        transferService = new TransferService(processor, new TransferSingleFlight(10_000, Duration.ofSeconds(5)),
+                executor, new ObjectMapper(), 64,
+                new StaticListableBeanFactory().getBeanProvider(TransferDispatcher.class), metrics, 10_000,
+                new StaticListableBeanFactory().getBeanProvider(StripedSerialExecutor.class), Duration.ofSeconds(1));
+        request = new TransferRequestDTO(1L, 2L, new BigDecimal("10.00"));
+        batchRequests = Collections.nCopies(BATCH_SIZE, request);
+        processor.processTransfer(request, DUPLICATE_KEY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    /**
+     * New key: claim, ledger call and finalize. The row is removed afterwards to keep the store small.
+     */
+    @Benchmark
+    public TransferResultDTO processTransfer() {
+        String key = "k-" + keys.incrementAndGet();
+        TransferResultDTO result = processor.processTransfer(request, key);
+        store.remove(key);
+        return result;
+    }
+
+    /**
+     * Retry of a finalized key, answered from the result cache.
+     */
+    @Benchmark
+    public TransferResultDTO processTransferDuplicate() {
+        return processor.processTransfer(request, DUPLICATE_KEY);
+    }
+
+    /**
+     * A full batch of new keys: batched claim, ledger calls fanned out on the transfer executor, batched finalize.
+     */
+    @Benchmark
+    public List<TransferResultDTO> transferBatch() {
+        List<String> batchKeys = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batchKeys.add("b-" + keys.incrementAndGet());
+        }
+        List<TransferResultDTO> results = transferService.transferBatch(batchRequests, batchKeys);
+        batchKeys.forEach(store::remove);
+        return results;
+    }
+}
@@ -0,0 +1,39 @@
+package com.wallet.transfer.jmh;
+
+import com.example.common.exception.ValidationError;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.util.TransferValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferValidatorBenchmark {
+    private final TransferRequestDTO valid = new TransferRequestDTO(1L, 2L, new BigDecimal("10.00"));
+    private final TransferRequestDTO invalid = new TransferRequestDTO(1L, 1L, BigDecimal.ZERO);
+
+    @Benchmark
+    public List<ValidationError> validRequest() {
+        return TransferValidator.validateTransformerRequest(valid);
+    }
+
+    @Benchmark
+    public List<ValidationError> invalidRequest() {
+        return TransferValidator.validateTransformerRequest(invalid);
+    }
+}
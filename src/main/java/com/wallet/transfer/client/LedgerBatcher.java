@@ -0,0 +1,183 @@
+package com.wallet.transfer.client;
+
+import com.wallet.transfer.dto.LedgerBulkTransferDTO;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent ledger transfers into bulk ledger calls.
+ * <p>
+ * Callers block on {@link #transfer} while a dispatcher thread collects pending transfers for up to
+ * {@code maxWait} or {@code maxBatchSize} items, sends them as one bulk request and completes each caller
+ * with its own result. If the ledger does not know the bulk endpoint, the batcher switches itself off and
+ * every transfer goes back to single calls.
+ */
+@Slf4j
+class LedgerBatcher implements AutoCloseable {
+    private final Function<List<LedgerBulkTransferDTO>, List<TransferResultDTO>> bulkCall;
+    private final BiFunction<TransferRequestDTO, String, TransferResultDTO> singleCall;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final ExecutorService flushExecutor;
+    private final Thread dispatcher;
+    private volatile boolean bulkAvailable = true;
+    private volatile boolean running = true;
+
+    LedgerBatcher(Function<List<LedgerBulkTransferDTO>, List<TransferResultDTO>> bulkCall,
+                  BiFunction<TransferRequestDTO, String, TransferResultDTO> singleCall,
+                  int maxBatchSize, Duration maxWait, int maxInFlight) {
+        this.bulkCall = bulkCall;
+        this.singleCall = singleCall;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.queue = new LinkedBlockingQueue<>(maxBatchSize * maxInFlight * 4);
+        this.flushExecutor = Executors.newFixedThreadPool(maxInFlight, new CustomizableThreadFactory("ledger-bulk-"));
+        this.dispatcher = new Thread(this::dispatchLoop, "ledger-bulk-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    boolean isBulkAvailable() {
+        return bulkAvailable && running;
+    }
+
+    /**
+     * Send a transfer as part of the next bulk call and wait for its result.
+     * Falls back to a single call when the queue is full.
+     */
+    TransferResultDTO transfer(TransferRequestDTO request, String idempotencyKey) {
+        PendingTransfer pending = new PendingTransfer(request, idempotencyKey, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            return singleCall.apply(request, idempotencyKey);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void dispatchLoop() {
+        List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingTransfer first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingTransfer next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                List<PendingTransfer> toSend = List.copyOf(batch);
+                flushExecutor.execute(() -> flush(toSend));
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Ledger bulk dispatcher failed to flush {} transfer(s): {}", batch.size(), e.getMessage());
+                batch.forEach(p -> p.result().completeExceptionally(e));
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingTransfer> batch) {
+        if (batch.size() == 1 || !bulkAvailable) {
+            batch.forEach(this::sendSingle);
+            return;
+        }
+        List<LedgerBulkTransferDTO> items = new ArrayList<>(batch.size());
+        for (PendingTransfer pending : batch) {
+            TransferRequestDTO request = pending.request();
+            items.add(new LedgerBulkTransferDTO(pending.idempotencyKey(), request.getFromAccountId(),
+                    request.getToAccountId(), request.getAmount()));
+        }
+        List<TransferResultDTO> results;
+        try {
+            results = bulkCall.apply(items);
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed
+                 | HttpServerErrorException.NotImplemented e) {
+            log.warn("Ledger bulk endpoint unavailable ({}), falling back to single transfer calls", e.getStatusCode());
+            bulkAvailable = false;
+            batch.forEach(pending -> Thread.startVirtualThread(() -> sendSingle(pending)));
+            return;
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        Map<String, TransferResultDTO> resultsByKey = new HashMap<>();
+        if (results != null) {
+            for (TransferResultDTO result : results) {
+                if (result != null && result.getTransferId() != null) {
+                    resultsByKey.put(result.getTransferId(), result);
+                }
+            }
+        }
+        for (PendingTransfer pending : batch) {
+            TransferResultDTO result = resultsByKey.get(pending.idempotencyKey());
+            if (result != null) {
+                pending.result().complete(result);
+            } else {
+                // The ledger did not answer for this item; resending with the same key is safe
+                Thread.startVirtualThread(() -> sendSingle(pending));
+            }
+        }
+    }
+
+    private void sendSingle(PendingTransfer pending) {
+        try {
+            pending.result().complete(singleCall.apply(pending.request(), pending.idempotencyKey()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        flushExecutor.shutdown();
+        List<PendingTransfer> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Ledger client is shutting down")));
+    }
+
+    private record PendingTransfer(TransferRequestDTO request, String idempotencyKey,
+                                   CompletableFuture<TransferResultDTO> result) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.wallet.transfer.client;
+
+import com.wallet.transfer.dto.LedgerBulkTransferDTO;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Client for the ledger service transfer API.
+ * The target URIs are resolved once at startup; the underlying {@link RestTemplate} is backed by a
+ * pooled, keep-alive request factory (see {@code RestTemplateConfig}).
+ * <p>
+ * When {@code ledger-api.bulk.api} is set, concurrent transfers are coalesced into bulk ledger calls
+ * (see {@link LedgerBatcher}).
+ * <p>
+ * Unless {@code ledger-api.limit.enabled} is false, concurrent calls are capped by a {@link LedgerConcurrencyLimiter}.
+ * With {@code ledger-api.hedge.enabled}, slow single calls carrying an idempotency key are hedged (see {@link LedgerHedger}).
+ */
+@Slf4j
+@Component
+public class LedgerClient implements DisposableBean {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final ParameterizedTypeReference<List<TransferResultDTO>> BULK_RESULT_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final RestTemplate restTemplate;
+    private final URI transferUri;
+    private final LedgerBatcher batcher;
+    private final LedgerConcurrencyLimiter limiter;
+    private final LedgerHedger hedger;
+
+    public LedgerClient(RestTemplate restTemplate, String apiHostContext, String ledgerTransferApi) {
+        this(restTemplate, apiHostContext, ledgerTransferApi, "", 1, Duration.ZERO, 1);
+    }
+
+    public LedgerClient(RestTemplate restTemplate, String apiHostContext, String ledgerTransferApi, String ledgerBulkApi,
+                        int maxBatchSize, Duration maxWait, int maxInFlight) {
+        this(restTemplate, apiHostContext, ledgerTransferApi, ledgerBulkApi, maxBatchSize, maxWait, maxInFlight, null, null);
+    }
+
+    @Autowired
+    public LedgerClient(RestTemplate restTemplate,
+                        @Value("${ledger-api.host}") String apiHostContext,
+                        @Value("${ledger-api.transfer.api}") String ledgerTransferApi,
+                        @Value("${ledger-api.bulk.api:}") String ledgerBulkApi,
+                        @Value("${ledger-api.bulk.max-batch-size:50}") int maxBatchSize,
+                        @Value("${ledger-api.bulk.max-wait:5ms}") Duration maxWait,
+                        @Value("${ledger-api.bulk.max-in-flight:4}") int maxInFlight,
+                        ObjectProvider<LedgerConcurrencyLimiter> limiter,
+                        ObjectProvider<LedgerHedger> hedger) {
+        this.restTemplate = restTemplate;
+        this.limiter = limiter != null ? limiter.getIfAvailable() : null;
+        this.hedger = hedger != null ? hedger.getIfAvailable() : null;
+        this.transferUri = UriComponentsBuilder.fromHttpUrl(apiHostContext + ledgerTransferApi)
+                .build()
+                .toUri();
+        log.info("Ledger transfer API resolved to {}", transferUri);
+        if (StringUtils.hasText(ledgerBulkApi)) {
+            URI bulkUri = UriComponentsBuilder.fromHttpUrl(apiHostContext + ledgerBulkApi)
+                    .build()
+                    .toUri();
+            log.info("Ledger bulk API resolved to {}, batching up to {} transfers or {}", bulkUri, maxBatchSize, maxWait);
+            this.batcher = new LedgerBatcher(items -> postBulk(bulkUri, items), this::postTransfer,
+                    maxBatchSize, maxWait, maxInFlight);
+        } else {
+            this.batcher = null;
+        }
+    }
+
+    /**
+     * Ask the ledger to apply a transfer atomically (debit and credit).
+     *
+     * @param request        The transfer request data.
+     * @param idempotencyKey The idempotency key forwarded to the ledger.
+     * @return The ledger result, or null if the ledger returned no body.
+     * @throws com.wallet.transfer.exception.ServiceOverloadedException if the concurrency limit is reached.
+     */
+    public TransferResultDTO transfer(TransferRequestDTO request, String idempotencyKey) {
+        if (batcher != null && idempotencyKey != null && batcher.isBulkAvailable()) {
+            return limited(() -> batcher.transfer(request, idempotencyKey));
+        }
+        // Only a call with an idempotency key may reach the ledger twice; the hedger holds a limiter slot per request
+        if (hedger != null && idempotencyKey != null) {
+            return hedger.call(() -> postTransfer(request, idempotencyKey));
+        }
+        return limited(() -> postTransfer(request, idempotencyKey));
+    }
+
+    private TransferResultDTO limited(Supplier<TransferResultDTO> call) {
+        if (limiter == null) {
+            return call.get();
+        }
+        long start = limiter.acquire();
+        boolean overloaded = false;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            overloaded = isOverloaded(e);
+            throw e;
+        } finally {
+            limiter.release(start, overloaded);
+        }
+    }
+
+    /**
+     * Timeouts and explicit overload answers shrink the concurrency limit; other errors say nothing about ledger capacity.
+     */
+    static boolean isOverloaded(Throwable failure) {
+        return failure instanceof ResourceAccessException || failure instanceof HttpClientErrorException.TooManyRequests
+                || failure instanceof HttpServerErrorException.ServiceUnavailable;
+    }
+
+    /**
+     * Whether a failed {@link #transfer} call may still have been applied by the ledger: the request was sent but no
+     * answer arrived in time, or the ledger failed with a 5xx other than 503. Failures before the request left
+     * (connection refused, pool exhausted, circuit open, load shedding) and 4xx/503 answers mean it was not applied.
+     */
+    public static boolean isOutcomeUnknown(Throwable failure) {
+        if (failure instanceof RestClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() && response.getStatusCode().value() != 503;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpConnectTimeoutException) {
+                return false;
+            }
+            // A read timeout: Apache's connect timeout is not a SocketTimeoutException
+            if (cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException
+                    || cause instanceof org.apache.hc.core5.http.NoHttpResponseException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public URI getTransferUri() {
+        return transferUri;
+    }
+
+    private TransferResultDTO postTransfer(TransferRequestDTO request, String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return restTemplate.postForObject(transferUri, new HttpEntity<>(request, headers), TransferResultDTO.class);
+    }
+
+    private List<TransferResultDTO> postBulk(URI bulkUri, List<LedgerBulkTransferDTO> items) {
+        return restTemplate.exchange(bulkUri, HttpMethod.POST, new HttpEntity<>(items), BULK_RESULT_TYPE).getBody();
+    }
+
+    @Override
+    public void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.wallet.transfer.client;
+
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive (AIMD) limit on concurrent ledger calls.
+ * <p>
+ * Calls beyond the current limit are rejected right away instead of queueing behind a slow ledger.
+ * Every call that completes within {@code ledger-api.limit.latency-threshold} while the limit is in use grows
+ * the limit by about one per limit's worth of calls. A slower call, a timeout or a 429/503 from the ledger
+ * multiplies it by {@code ledger-api.limit.backoff-ratio}, at most once per round trip so that one brownout
+ * does not collapse the limit to the minimum.
+ * <p>
+ * The initial limit is meant to be at least the concurrency the service itself allows for batch and stream items,
+ * so that only load beyond what the ledger has shown it can take is rejected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ledger-api.limit.enabled", havingValue = "true", matchIfMissing = true)
+public class LedgerConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Duration retryAfter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    public LedgerConcurrencyLimiter(@Value("${ledger-api.limit.initial:64}") int initialLimit,
+                                    @Value("${ledger-api.limit.min:2}") int minLimit,
+                                    @Value("${ledger-api.limit.max:200}") int maxLimit,
+                                    @Value("${ledger-api.limit.latency-threshold:1s}") Duration latencyThreshold,
+                                    @Value("${ledger-api.limit.backoff-ratio:0.9}") double backoffRatio,
+                                    @Value("${ledger-api.limit.retry-after:1s}") Duration retryAfter) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("ledger-api.limit must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("ledger-api.limit.backoff-ratio must be between 0 and 1");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.retryAfter = retryAfter;
+        log.info("Ledger concurrency limit starts at {} (min {}, max {}), latency threshold {}",
+                initialLimit, minLimit, maxLimit, latencyThreshold);
+    }
+
+    /**
+     * Take a slot for one ledger call; every successful acquire must be paired with {@link #release}.
+     *
+     * @return the call's start time, to be passed to {@link #release}.
+     * @throws ServiceOverloadedException if the limit is reached.
+     */
+    public long acquire() {
+        OptionalLong start = tryAcquire();
+        if (start.isEmpty()) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Ledger concurrency limit of " + getLimit() + " reached, retry later", retryAfter);
+        }
+        return start.getAsLong();
+    }
+
+    /**
+     * Take a slot if one is free, for optional extra calls such as hedges; not counted as a rejection otherwise.
+     *
+     * @return the call's start time, to be passed to {@link #release}, or empty if the limit is reached.
+     */
+    public OptionalLong tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return OptionalLong.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return OptionalLong.of(System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Free the slot and adjust the limit by the call's outcome.
+     *
+     * @param startNanos value returned by {@link #acquire}.
+     * @param overloaded true if the call timed out or the ledger answered that it is overloaded.
+     */
+    public void release(long startNanos, boolean overloaded) {
+        long now = System.nanoTime();
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (overloaded || now - startNanos > latencyThresholdNanos) {
+                // Calls started before the last decrease saw the old limit; they must not shrink it again
+                if (startNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (current * 2 >= limit) {
+                // Only grow while the limit is actually in use
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+
+    /**
+     * Free the slot without adjusting the limit, for a call whose latency says nothing about the ledger's capacity.
+     */
+    public void releaseUnmeasured() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,247 @@
+package com.wallet.transfer.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedges idempotent ledger calls, enabled with {@code ledger-api.hedge.enabled}.
+ * <p>
+ * If a call has not answered within the {@code ledger-api.hedge.percentile} of recent ledger latencies, an
+ * identical second call is sent and whichever succeeds first wins; the other one is left to finish and discarded.
+ * Hedges are paid for from a token bucket that earns {@code ledger-api.hedge.budget} tokens per call, so they add
+ * at most that fraction of extra load even when the ledger is slow across the board.
+ * A call that fails before the delay is not hedged: hedging addresses latency, not errors.
+ * With the ledger concurrency limit enabled, the original call and the hedge each hold a slot until their own
+ * request finishes, so a call left running behind a winning hedge still counts as in flight. A hedge is skipped
+ * when no slot is free. The original call's latency is not fed to the limit when the hedge won: it would only say
+ * that the call was slow enough to be hedged.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ledger-api.hedge.enabled", havingValue = "true")
+public class LedgerHedger implements DisposableBean {
+    private static final int WINDOW = 1024;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final double MAX_TOKENS = 10.0;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budget;
+    private final ExecutorService executor;
+    private final LedgerConcurrencyLimiter limiter;
+
+    private final long[] latencies = new long[WINDOW];
+    private long samples;
+    private volatile long delayNanos;
+    private double tokens;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder hedgesSkipped = new LongAdder();
+
+    public LedgerHedger(@Value("${ledger-api.hedge.percentile:0.95}") double percentile,
+                        @Value("${ledger-api.hedge.min-delay:20ms}") Duration minDelay,
+                        @Value("${ledger-api.hedge.budget:0.05}") double budget,
+                        ObjectProvider<LedgerConcurrencyLimiter> limiter) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("ledger-api.hedge.percentile must be between 0 and 1");
+        }
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budget = budget;
+        this.limiter = limiter.getIfAvailable();
+        // Every in-flight call blocks a thread, which is cheap with virtual threads
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ledger-hedge-", 0).factory());
+        // Until enough latencies are seen, hedge only calls that are clearly slow
+        this.delayNanos = Math.max(minDelayNanos, TimeUnit.SECONDS.toNanos(1));
+        log.info("Ledger hedging enabled at p{} of recent latencies (at least {}), budget {}", percentile * 100, minDelay, budget);
+    }
+
+    /**
+     * Run {@code call}, and a second time if it is slower than the hedge delay and the budget allows.
+     * {@code call} must be idempotent.
+     */
+    public <T> T call(Supplier<T> call) {
+        long primarySlot = limiter != null ? limiter.acquire() : 0L;
+        calls.increment();
+        earnToken();
+        long start = System.nanoTime();
+        CompletableFuture<T> primary = submit(call);
+        AtomicBoolean hedgeWon = new AtomicBoolean();
+        if (limiter != null) {
+            primary.whenComplete((result, failure) -> {
+                if (hedgeWon.get()) {
+                    limiter.releaseUnmeasured();
+                } else {
+                    limiter.release(primarySlot, isOverloaded(failure));
+                }
+            });
+        }
+        try {
+            T result = primary.get(delayNanos, TimeUnit.NANOSECONDS);
+            recordLatency(System.nanoTime() - start);
+            return result;
+        } catch (TimeoutException e) {
+            if (!spendToken()) {
+                return join(primary, start);
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger", e);
+        }
+        // The hedge is one more in-flight ledger call, so it needs a concurrency-limit slot of its own
+        OptionalLong slot = limiter != null ? limiter.tryAcquire() : OptionalLong.of(0L);
+        if (slot.isEmpty()) {
+            refundToken();
+            hedgesSkipped.increment();
+            return join(primary, start);
+        }
+        hedges.increment();
+        CompletableFuture<T> hedge = submit(call);
+        if (limiter != null) {
+            hedge.whenComplete((result, failure) -> limiter.release(slot.getAsLong(), isOverloaded(failure)));
+        }
+        return firstSuccess(primary, hedge, hedgeWon, start);
+    }
+
+    private static boolean isOverloaded(Throwable failure) {
+        return failure != null && LedgerClient.isOverloaded(failure instanceof CompletionException ? failure.getCause() : failure);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        return CompletableFuture.supplyAsync(() -> {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                return call.get();
+            } finally {
+                MDC.clear();
+            }
+        }, executor);
+    }
+
+    private <T> T firstSuccess(CompletableFuture<T> primary, CompletableFuture<T> hedge, AtomicBoolean hedgeWon, long start) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        primary.whenComplete((result, failure) -> {
+            if (failure == null) {
+                winner.complete(result);
+            } else {
+                // The hedge decides the outcome; if it fails too, report the primary's error
+                hedge.whenComplete((hedgeResult, hedgeFailure) -> winner.completeExceptionally(failure));
+            }
+        });
+        hedge.whenComplete((result, failure) -> {
+            if (failure == null && winner.complete(result)) {
+                hedgeWon.set(true);
+                hedgeWins.increment();
+            }
+        });
+        return join(winner, start);
+    }
+
+    private <T> T join(CompletableFuture<T> result, long start) {
+        try {
+            T value = result.join();
+            recordLatency(System.nanoTime() - start);
+            return value;
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(failure);
+    }
+
+    private synchronized void earnToken() {
+        tokens = Math.min(MAX_TOKENS, tokens + budget);
+    }
+
+    private synchronized void refundToken() {
+        tokens += 1.0;
+    }
+
+    private synchronized boolean spendToken() {
+        if (tokens < 1.0) {
+            return false;
+        }
+        tokens -= 1.0;
+        return true;
+    }
+
+    private void recordLatency(long nanos) {
+        long[] window = null;
+        synchronized (latencies) {
+            latencies[(int) (samples++ % WINDOW)] = nanos;
+            if (samples % RECOMPUTE_EVERY == 0) {
+                window = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW));
+            }
+        }
+        if (window != null) {
+            Arrays.sort(window);
+            delayNanos = Math.max(minDelayNanos, window[(int) (percentile * (window.length - 1))]);
+        }
+    }
+
+    public long getDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(delayNanos);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * @return hedges not sent because the ledger concurrency limit had no free slot.
+     */
+    public long getHedgesSkipped() {
+        return hedgesSkipped.sum();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
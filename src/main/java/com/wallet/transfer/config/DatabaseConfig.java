@@ -1,9 +1,14 @@
 package com.wallet.transfer.config;
 
 
+import com.zaxxer.hikari.HikariDataSource;
 import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
@@ -19,6 +24,8 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableTransactionManagement
@@ -27,16 +34,62 @@ public class DatabaseConfig {
     @Autowired
     private Environment env;
 
+    /**
+     * Connection pool for the primary database. Pool sizing, timeouts, leak detection and driver properties
+     * (e.g. the pgjdbc prepared-statement cache) are bound from {@code spring.datasource.hikari}.
+     */
     @Bean
-    @Primary
-    @Qualifier("dataSource")
-    public DataSource primaryDataSource() {
-        return DataSourceBuilder.create()
+    public HikariDataSource primaryDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
                 .url(env.getProperty("spring.datasource.url"))
                 .username(env.getProperty("spring.datasource.username"))
                 .password(env.getProperty("spring.datasource.password"))
                 .driverClassName(env.getProperty("spring.datasource.driver-class-name"))
                 .build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Optional read-only pool for the replica at {@code spring.datasource.replica.url}. It takes the primary's
+     * pool settings, overridden by {@code spring.datasource.replica.hikari}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.datasource.replica.url")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(env.getProperty("spring.datasource.replica.url"))
+                .username(env.getProperty("spring.datasource.replica.username", env.getProperty("spring.datasource.username", "")))
+                .password(env.getProperty("spring.datasource.replica.password", env.getProperty("spring.datasource.password", "")))
+                .driverClassName(env.getProperty("spring.datasource.driver-class-name"))
+                .build();
+        Binder binder = Binder.get(env);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        binder.bind("spring.datasource.replica.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * The DataSource used by JPA and JDBC: the primary pool, or the replica inside
+     * {@link ReadReplicaRoutingDataSource#onReplica} when a replica is configured.
+     */
+    @Bean
+    @Primary
+    @Qualifier("dataSource")
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource) {
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReadReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+        targets.put(ReadReplicaRoutingDataSource.REPLICA, replicaDataSource.getIfAvailable(() -> primaryDataSource));
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        return routingDataSource;
     }
 
     @Primary
@@ -47,9 +100,19 @@ public class DatabaseConfig {
         return builder.dataSource(dataSource)
                 .packages("com.wallet.transfer.entity")
                 .persistenceUnit("primary")
+                .properties(hibernateProperties())
                 .build();
     }
 
+    /**
+     * IN lists are padded to the next power of two so bulk lookups reuse a handful of statements.
+     */
+    private Map<String, Object> hibernateProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.query.in_clause_parameter_padding", "true");
+        return properties;
+    }
+
     @Primary
     @Bean(name = "transactionManager")
     public PlatformTransactionManager transactionManager(@Qualifier("entityManagerFactory") EntityManagerFactory barEntityManagerFactory) {
@@ -61,7 +124,7 @@ public class DatabaseConfig {
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         vendorAdapter.setDatabasePlatform(env.getProperty("spring.jpa.database-platform"));
         vendorAdapter.setGenerateDdl(false);
-        vendorAdapter.setShowSql(true);
+        vendorAdapter.setShowSql(env.getProperty("spring.jpa.show-sql", Boolean.class, false));
         return vendorAdapter;
     }
 }
\ No newline at end of file
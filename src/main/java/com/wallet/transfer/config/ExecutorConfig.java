@@ -0,0 +1,61 @@
+package com.wallet.transfer.config;
+
+import com.wallet.transfer.util.BoundedExecutor;
+import com.wallet.transfer.util.StripedSerialExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor for blocking transfer work (ledger call and JDBC) fanned out from batch requests.
+     * <p>
+     * With {@code spring.threads.virtual.enabled} each task gets its own virtual thread, and the same switch
+     * moves Tomcat request handling onto virtual threads. Otherwise a fixed platform thread pool is used.
+     * In both modes at most {@code transfer.executor.max-concurrency} tasks run at once, so the ledger and
+     * the DB pool are not flooded.
+     */
+    @Bean(destroyMethod = "close")
+    public BoundedExecutor transferExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                            @Value("${transfer.executor.max-concurrency:32}") int maxConcurrency) {
+        ExecutorService delegate;
+        if (virtualThreads) {
+            delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("transfer-vt-", 0).factory());
+        } else {
+            delegate = Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory("transfer-exec-"));
+        }
+        log.info("Transfer executor using {} threads, max concurrency {}", virtualThreads ? "virtual" : "platform", maxConcurrency);
+        return new BoundedExecutor(delegate, maxConcurrency);
+    }
+
+    /**
+     * Per-account lanes for ledger work, enabled with {@code transfer.lanes.enabled}.
+     * <p>
+     * Transfers are hashed by {@code fromAccountId} onto {@code transfer.lanes.count} serial lanes, so transfers
+     * debiting the same account reach the ledger one at a time and in order, while other accounts run in parallel.
+     * At most one task per lane runs at once, which also caps ledger concurrency at the lane count.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "transfer.lanes.enabled", havingValue = "true")
+    public StripedSerialExecutor transferLaneExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                                      @Value("${transfer.lanes.count:32}") int laneCount,
+                                                      @Value("${transfer.lanes.max-depth:100}") int maxDepth) {
+        ExecutorService delegate;
+        if (virtualThreads) {
+            delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("transfer-lane-vt-", 0).factory());
+        } else {
+            delegate = Executors.newFixedThreadPool(laneCount, new CustomizableThreadFactory("transfer-lane-"));
+        }
+        log.info("Transfer lanes enabled: {} lane(s), max depth {} per lane", laneCount, maxDepth);
+        return new StripedSerialExecutor(delegate, laneCount, maxDepth);
+    }
+}
@@ -0,0 +1,219 @@
+package com.wallet.transfer.config;
+
+import com.wallet.transfer.client.LedgerConcurrencyLimiter;
+import com.wallet.transfer.client.LedgerHedger;
+import com.wallet.transfer.scheduler.TransferCleanupService;
+import com.wallet.transfer.scheduler.TransferReconciler;
+import com.wallet.transfer.service.AsyncTransferDispatcher;
+import com.wallet.transfer.service.OutboxTransferDispatcher;
+import com.wallet.transfer.service.TransferReplayBuffer;
+import com.wallet.transfer.service.TransferResultCache;
+import com.wallet.transfer.service.TransferSingleFlight;
+import com.wallet.transfer.util.BoundedExecutor;
+import com.wallet.transfer.util.StripedSerialExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Binds the statistics kept by transfer components to Micrometer. The components only maintain counters;
+ * meters read them when scraped, so nothing here runs on the request path.
+ * Hikari pool and HTTP server metrics are bound by Spring Boot.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder transferResultCacheMetrics(TransferResultCache transferResultCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, transferResultCache.getNativeCache(), "transfer-results");
+    }
+
+    @Bean
+    public MeterBinder transferSingleFlightMetrics(TransferSingleFlight singleFlight) {
+        return registry -> {
+            Gauge.builder("transfer.singleflight.in.flight", singleFlight, TransferSingleFlight::getInFlight)
+                    .description("Idempotency keys currently being processed on this node")
+                    .register(registry);
+            singleFlightCounter(registry, singleFlight, "leader", TransferSingleFlight::getLeaders);
+            singleFlightCounter(registry, singleFlight, "follower", TransferSingleFlight::getFollowers);
+            singleFlightCounter(registry, singleFlight, "bypassed", TransferSingleFlight::getBypassed);
+            singleFlightCounter(registry, singleFlight, "timeout", TransferSingleFlight::getTimeouts);
+        };
+    }
+
+    private static void singleFlightCounter(MeterRegistry registry, TransferSingleFlight singleFlight,
+                                            String role, ToDoubleFunction<TransferSingleFlight> count) {
+        FunctionCounter.builder("transfer.singleflight.calls", singleFlight, count)
+                .description("Transfers by their role in single-flight coalescing")
+                .tag("role", role)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder transferExecutorMetrics(@Qualifier("transferExecutor") BoundedExecutor transferExecutor) {
+        return registry -> {
+            Gauge.builder("transfer.executor.in.flight", transferExecutor, BoundedExecutor::getInFlight)
+                    .description("Batch items currently executing")
+                    .register(registry);
+            Gauge.builder("transfer.executor.max.concurrency", transferExecutor, BoundedExecutor::getMaxConcurrency)
+                    .description("Upper bound on concurrently executing batch items")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder ledgerLimitMetrics(ObjectProvider<LedgerConcurrencyLimiter> ledgerConcurrencyLimiter) {
+        return registry -> ledgerConcurrencyLimiter.ifAvailable(limiter -> {
+            Gauge.builder("ledger.client.limit", limiter, LedgerConcurrencyLimiter::getLimit)
+                    .description("Current adaptive limit on concurrent ledger calls")
+                    .register(registry);
+            Gauge.builder("ledger.client.in.flight", limiter, LedgerConcurrencyLimiter::getInFlight)
+                    .description("Ledger calls currently in flight")
+                    .register(registry);
+            FunctionCounter.builder("ledger.client.rejected", limiter, LedgerConcurrencyLimiter::getRejected)
+                    .description("Ledger calls rejected because the concurrency limit was reached")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder ledgerHedgeMetrics(ObjectProvider<LedgerHedger> ledgerHedger) {
+        return registry -> ledgerHedger.ifAvailable(hedger -> {
+            FunctionCounter.builder("ledger.client.hedge.calls", hedger, LedgerHedger::getCalls)
+                    .description("Ledger calls eligible for hedging")
+                    .register(registry);
+            FunctionCounter.builder("ledger.client.hedge.sent", hedger, LedgerHedger::getHedges)
+                    .description("Second ledger requests sent because the first one was slow")
+                    .register(registry);
+            FunctionCounter.builder("ledger.client.hedge.won", hedger, LedgerHedger::getHedgeWins)
+                    .description("Hedged requests that answered before the original")
+                    .register(registry);
+            FunctionCounter.builder("ledger.client.hedge.skipped", hedger, LedgerHedger::getHedgesSkipped)
+                    .description("Hedges not sent because the ledger concurrency limit was reached")
+                    .register(registry);
+            TimeGauge.builder("ledger.client.hedge.delay", hedger, TimeUnit.MILLISECONDS, LedgerHedger::getDelayMillis)
+                    .description("Current delay before a ledger call is hedged")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder transferLaneMetrics(ObjectProvider<StripedSerialExecutor> transferLaneExecutor) {
+        return registry -> transferLaneExecutor.ifAvailable(lanes -> {
+            Gauge.builder("transfer.lanes.queued", lanes, StripedSerialExecutor::getQueued)
+                    .description("Transfers waiting on a per-account lane, across all lanes")
+                    .register(registry);
+            Gauge.builder("transfer.lanes.queued.max", lanes, StripedSerialExecutor::getMaxQueued)
+                    .description("Transfers waiting on the most loaded per-account lane")
+                    .register(registry);
+            Gauge.builder("transfer.lanes.max.depth", lanes, StripedSerialExecutor::getMaxDepth)
+                    .description("Transfers a lane may hold before rejecting")
+                    .register(registry);
+            FunctionCounter.builder("transfer.lanes.rejected", lanes, StripedSerialExecutor::getRejected)
+                    .description("Transfers rejected because their lane was full")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder asyncTransferMetrics(ObjectProvider<AsyncTransferDispatcher> asyncTransferDispatcher) {
+        return registry -> asyncTransferDispatcher.ifAvailable(dispatcher ->
+                Gauge.builder("transfer.async.queue.depth", dispatcher, AsyncTransferDispatcher::getQueueDepth)
+                        .description("Accepted transfers waiting for an async worker")
+                        .register(registry));
+    }
+
+    @Bean
+    public MeterBinder outboxTransferMetrics(ObjectProvider<OutboxTransferDispatcher> outboxTransferDispatcher) {
+        return registry -> outboxTransferDispatcher.ifAvailable(dispatcher -> {
+            outboxCounter(registry, dispatcher, "finalized", OutboxTransferDispatcher::getDispatched);
+            outboxCounter(registry, dispatcher, "retried", OutboxTransferDispatcher::getRetried);
+            outboxCounter(registry, dispatcher, "failed", OutboxTransferDispatcher::getFailed);
+            TimeGauge.builder("transfer.outbox.lag", dispatcher, TimeUnit.MILLISECONDS, OutboxTransferDispatcher::getLagMillis)
+                    .description("Age of the oldest outbox entry in the most recently leased batch")
+                    .register(registry);
+        });
+    }
+
+    private static void outboxCounter(MeterRegistry registry, OutboxTransferDispatcher dispatcher,
+                                      String outcome, ToDoubleFunction<OutboxTransferDispatcher> count) {
+        FunctionCounter.builder("transfer.outbox.entries", dispatcher, count)
+                .description("Outbox entries by dispatch outcome; failed entries are also counted as finalized")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder transferReplayBufferMetrics(ObjectProvider<TransferReplayBuffer> transferReplayBuffer) {
+        return registry -> transferReplayBuffer.ifAvailable(buffer -> {
+            Gauge.builder("transfer.buffer.size", buffer, TransferReplayBuffer::getSize)
+                    .description("Transfers queued while the ledger circuit was open and not replayed yet")
+                    .register(registry);
+            Gauge.builder("transfer.buffer.capacity", buffer, TransferReplayBuffer::getCapacity)
+                    .description("Queued transfers accepted before failing as usual")
+                    .register(registry);
+            bufferCounter(registry, buffer, "queued", TransferReplayBuffer::getQueued);
+            bufferCounter(registry, buffer, "replayed", TransferReplayBuffer::getReplayed);
+            bufferCounter(registry, buffer, "superseded", TransferReplayBuffer::getSuperseded);
+            bufferCounter(registry, buffer, "failed", TransferReplayBuffer::getFailed);
+            bufferCounter(registry, buffer, "expired", TransferReplayBuffer::getExpired);
+            bufferCounter(registry, buffer, "rejected", TransferReplayBuffer::getRejected);
+            TimeGauge.builder("transfer.buffer.age", buffer, TimeUnit.MILLISECONDS, TransferReplayBuffer::getOldestAgeMillis)
+                    .description("Age of the oldest queued transfer")
+                    .register(registry);
+        });
+    }
+
+    private static void bufferCounter(MeterRegistry registry, TransferReplayBuffer buffer,
+                                      String outcome, ToDoubleFunction<TransferReplayBuffer> count) {
+        FunctionCounter.builder("transfer.buffer.transfers", buffer, count)
+                .description("Transfers by replay buffer outcome; rejected ones found the buffer full")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder transferCleanupMetrics(ObjectProvider<TransferCleanupService> transferCleanupService) {
+        return registry -> transferCleanupService.ifAvailable(cleanup -> {
+            FunctionCounter.builder("transfer.cleanup.rows.deleted", cleanup, TransferCleanupService::getRowsDeleted)
+                    .description("Expired transfers deleted by the cleanup job")
+                    .register(registry);
+            TimeGauge.builder("transfer.cleanup.chunk.duration", cleanup, TimeUnit.MILLISECONDS, TransferCleanupService::getLastChunkMillis)
+                    .description("Duration of the most recent cleanup chunk")
+                    .register(registry);
+            TimeGauge.builder("transfer.cleanup.lag", cleanup, TimeUnit.SECONDS, TransferCleanupService::getLagSeconds)
+                    .description("Age of the oldest expired transfer beyond the retention cutoff")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder transferReconcilerMetrics(ObjectProvider<TransferReconciler> transferReconciler) {
+        return registry -> transferReconciler.ifAvailable(reconciler -> {
+            reconcilerCounter(registry, reconciler, "resolved", TransferReconciler::getResolved);
+            reconcilerCounter(registry, reconciler, "unresolved", TransferReconciler::getUnresolved);
+            reconcilerCounter(registry, reconciler, "superseded", TransferReconciler::getSuperseded);
+            TimeGauge.builder("transfer.reconciler.lag", reconciler, TimeUnit.MILLISECONDS, TransferReconciler::getLagMillis)
+                    .description("Age of the oldest pending or unknown transfer in this node's partition")
+                    .register(registry);
+        });
+    }
+
+    private static void reconcilerCounter(MeterRegistry registry, TransferReconciler reconciler,
+                                          String outcome, ToDoubleFunction<TransferReconciler> count) {
+        FunctionCounter.builder("transfer.reconciler.transfers", reconciler, count)
+                .description("Reconciliation attempts by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
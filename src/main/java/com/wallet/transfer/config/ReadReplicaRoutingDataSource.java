@@ -0,0 +1,40 @@
+package com.wallet.transfer.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.function.Supplier;
+
+/**
+ * Routes connections to the read replica while inside {@link #onReplica}, and to the primary otherwise.
+ * <p>
+ * The route is picked when a connection is acquired, so only work that opens its own connection (or transaction)
+ * inside {@link #onReplica} reaches the replica; a transaction already running on the primary keeps its connection.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Boolean> READ_REPLICA = new ThreadLocal<>();
+
+    /**
+     * Run a read-only call against the replica, if one is configured.
+     */
+    public static <T> T onReplica(Supplier<T> call) {
+        Boolean previous = READ_REPLICA.get();
+        READ_REPLICA.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                READ_REPLICA.remove();
+            } else {
+                READ_REPLICA.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Boolean.TRUE.equals(READ_REPLICA.get()) ? REPLICA : PRIMARY;
+    }
+}
@@ -1,14 +1,101 @@
 package com.wallet.transfer.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
 @Configuration
 public class RestTemplateConfig {
+    private volatile PoolingHttpClientConnectionManager ledgerConnectionManager;
+
+    /**
+     * Request factory for calls to the ledger service.
+     * <p>
+     * By default a bounded Apache HttpClient keep-alive pool is used. With {@code ledger-api.client.http2}
+     * the JDK HttpClient is used instead, which negotiates HTTP/2 where the ledger supports it and
+     * multiplexes requests over a single connection, falling back to HTTP/1.1 otherwise.
+     */
+    @Bean
+    public ClientHttpRequestFactory ledgerRequestFactory(
+            @Value("${ledger-api.client.http2:false}") boolean http2,
+            @Value("${ledger-api.client.max-connections:50}") int maxConnections,
+            @Value("${ledger-api.client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${ledger-api.client.read-timeout:5s}") Duration readTimeout,
+            @Value("${ledger-api.client.pool-acquire-timeout:1s}") Duration poolAcquireTimeout,
+            @Value("${ledger-api.client.idle-timeout:30s}") Duration idleTimeout) {
+        if (http2) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(readTimeout);
+            return requestFactory;
+        }
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .build())
+                .build();
+        ledgerConnectionManager = connectionManager;
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .evictExpiredConnections()
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * Leased, available and pending connections of the ledger connection pool (not available with HTTP/2).
+     */
+    @Bean
+    public MeterBinder ledgerConnectionPoolMetrics() {
+        return registry -> {
+            ledgerPoolGauge(registry, "leased", PoolStats::getLeased);
+            ledgerPoolGauge(registry, "available", PoolStats::getAvailable);
+            ledgerPoolGauge(registry, "pending", PoolStats::getPending);
+        };
+    }
+
+    private void ledgerPoolGauge(MeterRegistry registry, String state, ToIntFunction<PoolStats> value) {
+        Gauge.builder("ledger.client.connections", this, config -> {
+                    PoolingHttpClientConnectionManager connectionManager = config.ledgerConnectionManager;
+                    return connectionManager != null ? value.applyAsInt(connectionManager.getTotalStats()) : Double.NaN;
+                })
+                .description("Ledger HTTP connection pool usage")
+                .tag("state", state)
+                .register(registry);
+    }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(ClientHttpRequestFactory ledgerRequestFactory) {
+        return new RestTemplate(ledgerRequestFactory);
     }
 }
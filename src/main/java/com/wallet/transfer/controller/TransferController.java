@@ -1,7 +1,13 @@
 package com.wallet.transfer.controller;
 
+import com.wallet.transfer.dto.BulkTransferStatusDTO;
+import com.wallet.transfer.dto.TransferHistoryPageDTO;
 import com.wallet.transfer.dto.TransferRequestDTO;
 import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.service.TransferHistoryService;
 import com.wallet.transfer.service.TransferService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,9 +15,15 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -20,9 +32,11 @@ import java.util.List;
 public class TransferController {
 
     private final TransferService transferService;
+    private final TransferHistoryService transferHistoryService;
 
-    public TransferController(TransferService transferService) {
+    public TransferController(TransferService transferService, TransferHistoryService transferHistoryService) {
         this.transferService = transferService;
+        this.transferHistoryService = transferHistoryService;
     }
 
     /**
@@ -44,11 +58,21 @@ public class TransferController {
                             schema = @Schema(implementation = String.class)
                     )
             ),
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Accepted for asynchronous processing (transfer.async.enabled), queued while the ledger circuit is open (transfer.buffer.enabled), or the ledger outcome is unknown and left to the reconciler; poll GET /transfers/{id}",
+                    content = @Content(mediaType = "application/json")
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Invalid input data",
                     content = @Content(mediaType = "application/json")
             ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Transfer queue, account lane or ledger concurrency limit is full, retry after the Retry-After delay",
+                    content = @Content(mediaType = "application/json")
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
@@ -59,18 +83,116 @@ public class TransferController {
     public ResponseEntity<?> createTransfer(@RequestBody TransferRequestDTO transferRequestDTO,
                                             @RequestHeader(value = "Idempotency-Key") String idempotencyKey) {
         try {
+            if (transferService.isAsyncEnabled()) {
+                TransferResultDTO transferResultDTO = transferService.submitTransfer(transferRequestDTO, idempotencyKey);
+                HttpStatus status = TransferStatus.isFinal(transferResultDTO.getStatus()) ? HttpStatus.OK : HttpStatus.ACCEPTED;
+                return ResponseEntity.status(status).body(transferResultDTO);
+            }
             // Delegate to service, which handles idempotency, transferId, and status
             TransferResultDTO transferResultDTO = transferService.transfer(transferRequestDTO, idempotencyKey);
-            return ResponseEntity.status(HttpStatus.CREATED).body(transferResultDTO);
+            // Queued while the ledger circuit is open, or an unknown ledger outcome: poll GET /transfers/{id}
+            HttpStatus status = TransferStatus.isFinal(transferResultDTO.getStatus()) ? HttpStatus.CREATED : HttpStatus.ACCEPTED;
+            return ResponseEntity.status(status).body(transferResultDTO);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (ServiceOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds())
+                    .body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
 
     /**
-     * Endpoint to fetch transfer status by ID.
+     * Endpoint to list the transfers of an account, newest first, one page at a time.
+     *
+     * @param accountId The account debited or credited by the transfers.
+     * @param cursor    The nextCursor of the previous page; omit for the first page.
+     * @param limit     The page size.
+     * @return A page of transfers and the cursor of the next page.
+     */
+    @Operation(
+            summary = "List transfers of an account",
+            description = "Returns the account's transfers newest first, paginated with the opaque nextCursor of the previous page."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of transfers",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TransferHistoryPageDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid accountId, cursor or limit",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @GetMapping(params = "accountId")
+    public ResponseEntity<?> fetchTransferHistory(@RequestParam Long accountId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(transferHistoryService.getHistory(accountId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to export every transfer of an account as newline-delimited JSON.
+     *
+     * @param accountId The account debited or credited by the transfers.
+     * @return NDJSON stream of transfers, newest first.
+     */
+    @Operation(
+            summary = "Export transfers of an account",
+            description = "Streams all of the account's transfers, newest first, as newline-delimited JSON."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Export follows",
+                    content = @Content(mediaType = "application/x-ndjson")
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid accountId",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Too many exports running, retry after the Retry-After header",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTransferHistory(@RequestParam Long accountId) {
+        if (accountId == null || accountId <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        TransferHistoryService.HistoryExport export;
+        try {
+            export = transferHistoryService.openExport(accountId);
+        } catch (ServiceOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds())
+                    .build();
+        }
+        StreamingResponseBody body = export::writeTo;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Endpoint to fetch transfer status by ID. The response carries the transfer's row version as ETag;
+     * a poll with a matching {@code If-None-Match} is answered with 304 and no body.
      *
      * @param id The ID of the transfer.
      * @return String Transfer status if found, otherwise 404.
@@ -88,7 +210,12 @@ public class TransferController {
                             mediaType = "application/json",
                             schema = @Schema(implementation = String.class)
                     )
-            ),            @ApiResponse(
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Status unchanged since the ETag given in If-None-Match"
+            ),
+            @ApiResponse(
                     responseCode = "400",
                     description = "Invalid input data",
                     content = @Content(mediaType = "application/json")
@@ -105,11 +232,72 @@ public class TransferController {
             if (id == null || id.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid transfer id.");
             }
-            String status = transferService.getTransferById(id);
+            TransferStatusDTO status = transferService.getTransferStatus(id);
             if (status == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Transfer not found with ID: " + id);
             }
-            return ResponseEntity.ok(status);
+            // Spring answers a GET whose If-None-Match matches this ETag with 304 and drops the body
+            return ResponseEntity.ok()
+                    .eTag(Long.toString(status.getVersion()))
+                    .cacheControl(CacheControl.noCache())
+                    .body(status.getStatus());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to fetch the statuses of many transfers in one call.
+     *
+     * @param transferIds The transferIds to look up.
+     * @return The status of every known transfer and the ids that were not found.
+     */
+    @Operation(
+            summary = "Fetch transfer statuses in bulk",
+            description = "Takes a JSON array of transferIds and returns a transferId to status map plus the ids that were not found."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statuses resolved",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BulkTransferStatusDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No ids, or more than transfer.status.bulk.max-ids",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    @PostMapping(value = "/status", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> fetchTransferStatuses(@RequestBody List<String> transferIds) {
+        try {
+            return ResponseEntity.ok(transferService.getTransferStatuses(transferIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint to fetch the statuses of many transfers from a plain-text body with one transferId per line.
+     *
+     * @param input Newline-separated transferIds.
+     * @return The status of every known transfer and the ids that were not found.
+     */
+    @Operation(
+            summary = "Fetch transfer statuses in bulk from a list of ids",
+            description = "Same as the JSON variant for a text/plain body with one transferId per line, read as it arrives."
+    )
+    @PostMapping(value = "/status", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> fetchTransferStatusesFromLines(InputStream input) {
+        try {
+            return ResponseEntity.ok(transferService.getTransferStatuses(input));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
@@ -174,4 +362,29 @@ public class TransferController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Endpoint to process a newline-delimited JSON stream of transfer requests.
+     *
+     * @param input NDJSON records, each carrying its own idempotencyKey.
+     * @return NDJSON stream of TransferResultDTOs, written as each transfer completes.
+     */
+    @Operation(
+            summary = "Process streamed transfer requests",
+            description = "Reads newline-delimited JSON transfer records with bounded parallelism and streams one result line per record as it completes."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream accepted, per-item results follow",
+                    content = @Content(mediaType = "application/x-ndjson")
+            )
+    })
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transferStream(InputStream input) {
+        StreamingResponseBody body = output -> transferService.transferStream(input, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 }
@@ -0,0 +1,32 @@
+package com.wallet.transfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a bulk status lookup: the status of every known transfer and the ids that were not found.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Statuses of the requested transfers, in request order, and the ids that were not found.")
+public class BulkTransferStatusDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "Status by transferId", example = "{\"payout-1\": \"success\", \"payout-2\": \"pending\"}")
+    @JsonProperty("statuses")
+    private Map<String, String> statuses;
+
+    @Schema(description = "Requested transferIds with no transfer", example = "[\"payout-3\"]")
+    @JsonProperty("unknown")
+    private List<String> unknown;
+}
@@ -0,0 +1,33 @@
+package com.wallet.transfer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One item of a bulk transfer request sent to the ledger service.
+ * The ledger answers with one {@link TransferResultDTO} per item whose transferId is the idempotencyKey.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Item of a bulk transfer request sent to the ledger.")
+public class LedgerBulkTransferDTO {
+
+    @Schema(description = "Idempotency key of the transfer", example = "3f1c9a52-7c1e-4b8e-9d57-0c2a6f1b7e10")
+    private String idempotencyKey;
+
+    @Schema(description = "ID of the account to debit", example = "1001")
+    private Long fromAccountId;
+
+    @Schema(description = "ID of the account to credit", example = "1002")
+    private Long toAccountId;
+
+    @Schema(description = "Amount to transfer", example = "250.00")
+    private BigDecimal amount;
+}
@@ -0,0 +1,53 @@
+package com.wallet.transfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One transfer in an account's history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A transfer debiting or crediting the requested account.")
+public class TransferHistoryDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Row id, only used to build the page cursor. */
+    @JsonIgnore
+    private Long id;
+
+    @Schema(description = "The transferId (idempotency key) of the transfer", example = "payout-1")
+    @JsonProperty("transferId")
+    private String transferId;
+
+    @Schema(description = "ID of the debited account", example = "1001")
+    @JsonProperty("fromAccountId")
+    private Long fromAccountId;
+
+    @Schema(description = "ID of the credited account", example = "1002")
+    @JsonProperty("toAccountId")
+    private Long toAccountId;
+
+    @Schema(description = "Transferred amount", example = "250.00")
+    @JsonProperty("amount")
+    private BigDecimal amount;
+
+    @Schema(description = "The status of the transfer", example = "success")
+    @JsonProperty("status")
+    private String status;
+
+    @Schema(description = "When the transfer was created", example = "2024-05-01T12:30:00.123456")
+    @JsonProperty("createdAt")
+    private LocalDateTime createdAt;
+}
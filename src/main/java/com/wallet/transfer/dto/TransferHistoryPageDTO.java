@@ -0,0 +1,33 @@
+package com.wallet.transfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of an account's transfer history, newest first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A page of an account's transfers, newest first.")
+public class TransferHistoryPageDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "Transfers of this page")
+    @JsonProperty("transfers")
+    private List<TransferHistoryDTO> transfers;
+
+    @Schema(description = "Pass as cursor to fetch the next page; absent on the last page", example = "MjAyNC0wNS0wMVQxMjozMDowMHwxMjM")
+    @JsonProperty("nextCursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+}
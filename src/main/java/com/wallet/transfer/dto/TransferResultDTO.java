@@ -1,5 +1,6 @@
 package com.wallet.transfer.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
@@ -25,5 +26,26 @@ public class TransferResultDTO implements Serializable {
     @Schema(description = "The status of the transfer", example = "SUCCESS")
     @JsonProperty("status")
     private String status;
+
+    @Schema(description = "Why the item failed, only set for failed batch or stream items", example = "Invalid transfer request")
+    @JsonProperty("error")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+
+    public static TransferResultDTO failure(String transferId, String error) {
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(transferId);
+        result.setStatus("failure");
+        result.setError(error);
+        return result;
+    }
+
+    public static TransferResultDTO unknown(String transferId, String error) {
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(transferId);
+        result.setStatus("unknown");
+        result.setError(error);
+        return result;
+    }
 }
 
@@ -0,0 +1,24 @@
+package com.wallet.transfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Status of a transfer together with its row version, as served to status pollers.
+ * The version changes with every status change and backs the ETag of {@code GET /transfers/{id}}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferStatusDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String transferId;
+    private String status;
+    private long version;
+}
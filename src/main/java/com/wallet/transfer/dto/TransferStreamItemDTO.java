@@ -0,0 +1,36 @@
+package com.wallet.transfer.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One newline-delimited JSON record of a streamed transfer upload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Streamed transfer record carrying its own idempotency key.")
+public class TransferStreamItemDTO {
+
+    @Schema(description = "Idempotency key of the transfer", example = "payout-2024-05-01-000123")
+    private String idempotencyKey;
+
+    @Schema(description = "ID of the account to debit", example = "1001")
+    private Long fromAccountId;
+
+    @Schema(description = "ID of the account to credit", example = "1002")
+    private Long toAccountId;
+
+    @Schema(description = "Amount to transfer", example = "250.00")
+    private BigDecimal amount;
+
+    public TransferRequestDTO toRequest() {
+        return new TransferRequestDTO(fromAccountId, toAccountId, amount);
+    }
+}
@@ -5,18 +5,24 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.PartitionKey;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "TRANSFER")
+@Table(name = "TRANSFER", indexes = {
+        @Index(name = "idx_transfer_created_at", columnList = "created_at"),
+        @Index(name = "idx_transfer_from_account", columnList = "from_account_id, created_at, id"),
+        @Index(name = "idx_transfer_to_account", columnList = "to_account_id, created_at, id")
+})
 public class Transfer {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_id_seq")
@@ -43,7 +49,10 @@ public class Transfer {
     @Column(name = "version")
     private Long version;
 
+    // TRANSFER may be range partitioned by created_at (see db/init.sql); Hibernate then adds it to
+    // entity updates and deletes so they are routed to a single partition
+    @PartitionKey
     @CreationTimestamp
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 }
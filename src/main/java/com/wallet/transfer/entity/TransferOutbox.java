@@ -0,0 +1,53 @@
+package com.wallet.transfer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger call still owed for a PENDING transfer, written in the same transaction as the transfer row
+ * (transfer.async.dispatch=outbox). Read and written with JDBC by TransferOutboxRepository.
+ */
+@Entity
+@Data
+@Table(name = "TRANSFER_OUTBOX", indexes = {
+        @Index(name = "idx_transfer_outbox_available_at", columnList = "available_at, id"),
+        @Index(name = "idx_transfer_outbox_transfer_id", columnList = "transfer_id")
+})
+public class TransferOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "transfer_id", nullable = false)
+    private String transferId;
+
+    @Column(name = "from_account_id", nullable = false)
+    private Long fromAccountId;
+
+    @Column(name = "to_account_id", nullable = false)
+    private Long toAccountId;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+
+    // Dispatch attempts so far; each lease counts as one
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Not before this time may the entry be leased: creation, end of the current lease or retry backoff
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
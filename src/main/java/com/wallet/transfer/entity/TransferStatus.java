@@ -0,0 +1,36 @@
+package com.wallet.transfer.entity;
+
+/**
+ * Status values stored in {@link Transfer#getStatus()} by this service.
+ * Terminal statuses reported by the ledger (e.g. "success") are stored as returned.
+ */
+public final class TransferStatus {
+
+    /** The idempotency key is claimed and the ledger call has not completed yet. */
+    public static final String PENDING = "pending";
+
+    /** The transfer was not applied. */
+    public static final String FAILURE = "failure";
+
+    /**
+     * The ledger call failed in a way that leaves open whether the ledger applied the transfer, e.g. a read
+     * timeout. Resolved by {@code TransferReconciler}, which repeats the call with the same idempotency key.
+     */
+    public static final String UNKNOWN = "unknown";
+
+    /**
+     * Accepted while the ledger circuit was open and not sent to the ledger yet. Replayed by
+     * {@code TransferReplayBuffer} once the circuit lets calls through again.
+     */
+    public static final String QUEUED = "queued";
+
+    private TransferStatus() {
+    }
+
+    /**
+     * @return true if the status will not change any more.
+     */
+    public static boolean isFinal(String status) {
+        return status != null && !PENDING.equals(status) && !UNKNOWN.equals(status) && !QUEUED.equals(status);
+    }
+}
@@ -0,0 +1,27 @@
+package com.wallet.transfer.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a transfer is rejected because the service is at capacity.
+ * Mapped to 503 Service Unavailable with a Retry-After header.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return the Retry-After header value in whole seconds, at least 1.
+     */
+    public String getRetryAfterSeconds() {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+}
@@ -0,0 +1,72 @@
+package com.wallet.transfer.repository;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC-batched writes for the batch transfer path, so a whole batch costs one round trip per statement
+ * instead of one per item.
+ * <p>
+ * Relies on the driver reporting per-row update counts, so pgjdbc's {@code reWriteBatchedInserts} must stay off.
+ */
+@Repository
+public class TransferBatchRepository {
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO transfer (id, transfer_id, from_account_id, to_account_id, amount, status, created_at, version) " +
+            "VALUES (nextval('transfer_id_seq'), ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, 0) ON CONFLICT DO NOTHING";
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE transfer SET status = ?, version = version + 1 WHERE transfer_id = ? AND status = ?";
+    private static final String DELETE_PENDING_SQL =
+            "DELETE FROM transfer WHERE transfer_id = ? AND status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claims every transferId with a PENDING row unless one already exists, in one transaction.
+     *
+     * @param requests transfer requests keyed by transferId.
+     * @return per transferId, in iteration order: 1 if the row was inserted, 0 if it already existed.
+     */
+    @Transactional
+    public int[] insertIfAbsent(Map<String, TransferRequestDTO> requests) {
+        List<Object[]> args = new ArrayList<>(requests.size());
+        requests.forEach((transferId, request) -> args.add(new Object[]{
+                transferId, request.getFromAccountId(), request.getToAccountId(), request.getAmount(), TransferStatus.PENDING}));
+        return jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, args);
+    }
+
+    /**
+     * Moves PENDING transfers to their final status and releases the given PENDING claims, in one transaction.
+     *
+     * @param statuses final status by transferId.
+     * @param released transferIds whose claim is removed so a retry can proceed.
+     * @return per transferId in {@code statuses}, in iteration order: 1 if it was finalized, 0 if it was no longer PENDING.
+     */
+    @Transactional
+    public int[] finalizeAndRelease(Map<String, String> statuses, Collection<String> released) {
+        int[] updated = new int[0];
+        if (!statuses.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(statuses.size());
+            statuses.forEach((transferId, status) -> args.add(new Object[]{status, transferId, TransferStatus.PENDING}));
+            updated = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, args);
+        }
+        if (!released.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(released.size());
+            released.forEach(transferId -> args.add(new Object[]{transferId, TransferStatus.PENDING}));
+            jdbcTemplate.batchUpdate(DELETE_PENDING_SQL, args);
+        }
+        return updated;
+    }
+}
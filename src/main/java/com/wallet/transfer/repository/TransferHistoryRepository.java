@@ -0,0 +1,88 @@
+package com.wallet.transfer.repository;
+
+import com.wallet.transfer.dto.TransferHistoryDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Transfer history of an account, newest first, read in (created_at, id) keyset order.
+ * <p>
+ * The debit and credit sides are separate {@code UNION ALL} branches. Each branch is an ordered range scan
+ * of {@code idx_transfer_from_account} or {@code idx_transfer_to_account}, and the database merges them. A
+ * single {@code from_account_id = ? OR to_account_id = ?} predicate would have to sort every matching row.
+ * A transfer never debits and credits the same account, so the branches do not overlap.
+ */
+@Repository
+public class TransferHistoryRepository {
+    private static final String COLUMNS = "id, transfer_id, from_account_id, to_account_id, amount, status, created_at";
+    private static final String ORDER = " ORDER BY created_at DESC, id DESC";
+    // Row comparison, so Postgres uses it as an index condition on (account, created_at, id)
+    private static final String AFTER_CURSOR = " AND (created_at, id) < (?, ?)";
+    private static final RowMapper<TransferHistoryDTO> ROW_MAPPER = (rs, rowNum) -> new TransferHistoryDTO(
+            rs.getLong("id"),
+            rs.getString("transfer_id"),
+            rs.getLong("from_account_id"),
+            rs.getLong("to_account_id"),
+            rs.getBigDecimal("amount"),
+            rs.getString("status"),
+            rs.getObject("created_at", LocalDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Up to {@code limit} transfers of the account, strictly after the given keyset position if there is one.
+     *
+     * @param afterCreatedAt createdAt of the last row of the previous page, or null for the first page.
+     * @param afterId        id of the last row of the previous page, or null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public List<TransferHistoryDTO> findPage(long accountId, LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        boolean first = afterCreatedAt == null;
+        String after = first ? "" : AFTER_CURSOR;
+        String sql = "(SELECT " + COLUMNS + " FROM transfer WHERE from_account_id = ?" + after + ORDER + " LIMIT ?)" +
+                " UNION ALL " +
+                "(SELECT " + COLUMNS + " FROM transfer WHERE to_account_id = ?" + after + ORDER + " LIMIT ?)" +
+                ORDER + " LIMIT ?";
+        Object[] args = first
+                ? new Object[]{accountId, limit, accountId, limit, limit}
+                : new Object[]{accountId, afterCreatedAt, afterId, limit, accountId, afterCreatedAt, afterId, limit, limit};
+        return jdbcTemplate.query(sql, ROW_MAPPER, args);
+    }
+
+    /**
+     * Hands every transfer of the account to {@code consumer}, newest first, without materializing the result.
+     * Rows are fetched {@code fetchSize} at a time; pgjdbc only uses a cursor inside a transaction, hence
+     * {@code @Transactional}. The connection is held until the consumer has seen the last row, so callers
+     * bound how many streams run at once. {@code queryTimeout} bounds the query and each fetch.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(long accountId, int fetchSize, Duration queryTimeout, Consumer<TransferHistoryDTO> consumer) {
+        String sql = "SELECT " + COLUMNS + " FROM transfer WHERE from_account_id = ?" +
+                " UNION ALL " +
+                "SELECT " + COLUMNS + " FROM transfer WHERE to_account_id = ?" + ORDER;
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            statement.setQueryTimeout((int) Math.max(1, queryTimeout.toSeconds()));
+            statement.setLong(1, accountId);
+            statement.setLong(2, accountId);
+            return statement;
+        };
+        RowCallbackHandler rowHandler = rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0));
+        jdbcTemplate.query(statementCreator, rowHandler);
+    }
+}
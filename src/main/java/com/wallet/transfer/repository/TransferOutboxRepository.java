@@ -0,0 +1,114 @@
+package com.wallet.transfer.repository;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Transactional outbox for ledger calls (transfer.async.dispatch=outbox).
+ * <p>
+ * Entries are leased rather than locked for the duration of the ledger call: a short transaction picks
+ * available entries with {@code FOR UPDATE SKIP LOCKED}, so concurrent dispatchers on any node never pick the
+ * same entry, and pushes their {@code available_at} past the lease. An entry whose dispatcher died becomes
+ * available again once the lease runs out.
+ */
+@Repository
+public class TransferOutboxRepository {
+    private static final String INSERT_TRANSFER_SQL =
+            "INSERT INTO transfer (id, transfer_id, from_account_id, to_account_id, amount, status, created_at, version) " +
+            "VALUES (nextval('transfer_id_seq'), ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, 0) ON CONFLICT DO NOTHING";
+    private static final String INSERT_OUTBOX_SQL =
+            "INSERT INTO transfer_outbox (transfer_id, from_account_id, to_account_id, amount, attempts, available_at, created_at) " +
+            "VALUES (?, ?, ?, ?, 0, ?, ?)";
+    private static final String SELECT_AVAILABLE_SQL =
+            "SELECT id, transfer_id, from_account_id, to_account_id, amount, attempts, created_at FROM transfer_outbox " +
+            "WHERE available_at <= ? ORDER BY available_at, id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String LEASE_SQL =
+            "UPDATE transfer_outbox SET available_at = ?, attempts = attempts + 1 WHERE id = ?";
+    private static final String RESCHEDULE_SQL =
+            "UPDATE transfer_outbox SET available_at = ? WHERE id = ?";
+    private static final String DELETE_SQL =
+            "DELETE FROM transfer_outbox WHERE id = ?";
+
+    /**
+     * Leased outbox entry; {@code attempts} includes the current lease.
+     */
+    public record OutboxEntry(long id, String transferId, TransferRequestDTO request, int attempts, LocalDateTime createdAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claims the transferId with a PENDING transfer row and, if that succeeded, records the ledger call in the
+     * outbox, in one transaction.
+     *
+     * @return true if the transfer was new, false if the transferId already existed.
+     */
+    @Transactional
+    public boolean insertTransfer(String transferId, TransferRequestDTO request) {
+        int inserted = jdbcTemplate.update(INSERT_TRANSFER_SQL, transferId, request.getFromAccountId(),
+                request.getToAccountId(), request.getAmount(), TransferStatus.PENDING);
+        if (inserted != 1) {
+            return false;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_OUTBOX_SQL, transferId, request.getFromAccountId(), request.getToAccountId(),
+                request.getAmount(), now, now);
+        return true;
+    }
+
+    /**
+     * Leases up to {@code limit} available entries, oldest first, skipping entries locked by another dispatcher.
+     */
+    @Transactional
+    public List<OutboxEntry> lease(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEntry> entries = jdbcTemplate.query(SELECT_AVAILABLE_SQL, (rs, rowNum) -> new OutboxEntry(
+                rs.getLong("id"),
+                rs.getString("transfer_id"),
+                new TransferRequestDTO(rs.getLong("from_account_id"), rs.getLong("to_account_id"), rs.getBigDecimal("amount")),
+                rs.getInt("attempts") + 1,
+                rs.getTimestamp("created_at").toLocalDateTime()), Timestamp.valueOf(now), limit);
+        if (!entries.isEmpty()) {
+            Timestamp leasedUntil = Timestamp.valueOf(now.plus(lease));
+            List<Object[]> args = new ArrayList<>(entries.size());
+            entries.forEach(entry -> args.add(new Object[]{leasedUntil, entry.id()}));
+            jdbcTemplate.batchUpdate(LEASE_SQL, args);
+        }
+        return entries;
+    }
+
+    /**
+     * Makes a leased entry available again at {@code availableAt}, e.g. to retry a failed ledger call.
+     */
+    @Transactional
+    public void reschedule(long id, LocalDateTime availableAt) {
+        jdbcTemplate.update(RESCHEDULE_SQL, Timestamp.valueOf(availableAt), id);
+    }
+
+    /**
+     * Removes dispatched entries.
+     */
+    @Transactional
+    public void delete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(ids.size());
+        ids.forEach(id -> args.add(new Object[]{id}));
+        jdbcTemplate.batchUpdate(DELETE_SQL, args);
+    }
+}
@@ -1,17 +1,148 @@
 package com.wallet.transfer.repository;
 
 import com.wallet.transfer.entity.Transfer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
     Optional<Transfer> findByTransferId(String transferId);
 
+    List<Transfer> findByTransferIdIn(Collection<String> transferIds);
+
+    /**
+     * Status and row version of a transfer, read without loading the entity.
+     */
+    interface StatusView {
+        String getStatus();
+
+        Long getVersion();
+    }
+
+    /**
+     * Selects only {@code status} and {@code version} for status polling. Read-only, so nothing is
+     * tracked in the persistence context or flushed.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT t.status AS status, t.version AS version FROM Transfer t WHERE t.transferId = :transferId")
+    Optional<StatusView> findStatusByTransferId(String transferId);
+
+    /**
+     * Status and row version of a transfer, keyed by its transferId.
+     */
+    interface TransferIdStatusView extends StatusView {
+        String getTransferId();
+    }
+
+    /**
+     * Statuses of the given transfers in one read-only query on the {@code transfer_id} index.
+     * Callers bound the number of ids; unknown ids are simply absent from the result.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT t.transferId AS transferId, t.status AS status, t.version AS version FROM Transfer t " +
+            "WHERE t.transferId IN :transferIds")
+    List<TransferIdStatusView> findStatusesByTransferIdIn(Collection<String> transferIds);
+
+    /**
+     * Atomically claims a transferId by inserting a row unless one already exists, in a single round trip.
+     * <p>
+     * The id is taken straight from {@code transfer_id_seq}. Hibernate's pooled optimizer treats every
+     * sequence value as the upper end of its own block of {@code allocationSize} ids, so a value consumed
+     * here never overlaps with ids allocated for entities.
+     *
+     * @return 1 if the row was inserted, 0 if the transferId already exists.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO transfer (id, transfer_id, from_account_id, to_account_id, amount, status, created_at, version) " +
+            "VALUES (nextval('transfer_id_seq'), :transferId, :fromAccountId, :toAccountId, :amount, :status, CURRENT_TIMESTAMP, 0) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(String transferId, Long fromAccountId, Long toAccountId, BigDecimal amount, String status);
+
+    long countByStatus(String status);
+
+    /**
+     * Keyset page of transfers in the given status, ordered by id.
+     */
+    List<Transfer> findByStatusAndIdGreaterThanOrderByIdAsc(String status, Long id, Pageable pageable);
+
+    /**
+     * Keyset page of transfers in the given status created before the cutoff, ordered by id, restricted to the ids
+     * with {@code id % partitions == partition} so that several reconciler nodes share the work without overlap.
+     * Transfers with an outbox entry are left out: the outbox dispatcher still owns their ledger call.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT t FROM Transfer t WHERE t.status = :status AND t.createdAt < :cutoff AND t.id > :afterId " +
+            "AND MOD(t.id, :partitions) = :partition " +
+            "AND NOT EXISTS (SELECT o.id FROM TransferOutbox o WHERE o.transferId = t.transferId) ORDER BY t.id")
+    List<Transfer> findUnresolvedAfter(String status, LocalDateTime cutoff, Long afterId, long partitions, long partition,
+                                       Pageable pageable);
+
+    /**
+     * Creation time of the oldest transfer in one of the given statuses within an id partition.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT MIN(t.createdAt) FROM Transfer t WHERE t.status IN :statuses AND MOD(t.id, :partitions) = :partition")
+    Optional<LocalDateTime> findOldestCreatedAt(Collection<String> statuses, long partitions, long partition);
+
     @Modifying
     @Query("DELETE FROM Transfer t WHERE t.createdAt < :cutoff")
     int deleteByCreatedAtBefore(LocalDateTime cutoff);
+
+    /**
+     * Keyset of a transfer in (createdAt, id) order, as walked by the chunked cleanup.
+     */
+    interface CleanupKey {
+        Long getId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    /**
+     * First page of transfers created before the cutoff, oldest first.
+     */
+    List<CleanupKey> findByCreatedAtBeforeOrderByCreatedAtAscIdAsc(LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Next page of transfers created before the cutoff, strictly after the given (createdAt, id) keyset position.
+     */
+    @Query("SELECT t.id AS id, t.createdAt AS createdAt FROM Transfer t WHERE t.createdAt < :cutoff " +
+            "AND (t.createdAt > :afterCreatedAt OR (t.createdAt = :afterCreatedAt AND t.id > :afterId)) " +
+            "ORDER BY t.createdAt, t.id")
+    List<CleanupKey> findCleanupKeysAfter(LocalDateTime cutoff, LocalDateTime afterCreatedAt, Long afterId, Pageable pageable);
+
+    /**
+     * Deletes the given transfers in their own short transaction.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Transfer t WHERE t.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    /**
+     * Moves a transfer from {@code expectedStatus} to {@code status} in its own short transaction.
+     *
+     * @return the number of rows updated, 0 if the transfer was no longer in {@code expectedStatus}.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transfer t SET t.status = :status, t.version = t.version + 1 " +
+            "WHERE t.transferId = :transferId AND t.status = :expectedStatus")
+    int updateStatus(String transferId, String expectedStatus, String status);
+
+    /**
+     * Removes a transfer only while it is still in the given status, e.g. to release a PENDING claim.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Transfer t WHERE t.transferId = :transferId AND t.status = :status")
+    int deleteByTransferIdAndStatus(String transferId, String status);
 }
@@ -1,27 +1,160 @@
 package com.wallet.transfer.scheduler;
 
 import com.wallet.transfer.repository.TransferRepository;
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import com.wallet.transfer.repository.TransferRepository.CleanupKey;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Deletes transfers older than {@code transfer.retention.max-age} for deployments without a partitioned table.
+ * <p>
+ * Rows are deleted oldest first in chunks of {@code chunk-size}, each in its own short transaction, at no more than
+ * {@code max-rows-per-second}. The cleaner backs off while the connection pool is busy or chunks get slow, and
+ * stops after {@code max-run-duration}. Since every chunk removes the oldest remaining rows, a run that stopped
+ * (or a restarted node) simply continues where the previous one left off.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transfer.retention.mode", havingValue = "delete", matchIfMissing = true)
 public class TransferCleanupService {
 
     private final TransferRepository transferRepository;
+    private final ObjectProvider<DataSource> dataSource;
+    private final Duration maxAge;
+    private final int chunkSize;
+    private final int maxRowsPerSecond;
+    private final Duration maxRunDuration;
+    private final double maxPoolUsage;
+    private final Duration maxChunkDuration;
+    private final Duration maxBackoff;
 
-    // Runs every hour
-    @Scheduled(fixedRate = 60 * 60 * 1000)
-    @Transactional
+    private final LongAdder rowsDeleted = new LongAdder();
+    private final AtomicLong lastChunkMillis = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public TransferCleanupService(TransferRepository transferRepository,
+                                  ObjectProvider<DataSource> dataSource,
+                                  @Value("${transfer.retention.max-age:24h}") Duration maxAge,
+                                  @Value("${transfer.retention.cleanup.chunk-size:1000}") int chunkSize,
+                                  @Value("${transfer.retention.cleanup.max-rows-per-second:5000}") int maxRowsPerSecond,
+                                  @Value("${transfer.retention.cleanup.max-run-duration:10m}") Duration maxRunDuration,
+                                  @Value("${transfer.retention.cleanup.max-pool-usage:0.75}") double maxPoolUsage,
+                                  @Value("${transfer.retention.cleanup.max-chunk-duration:500ms}") Duration maxChunkDuration,
+                                  @Value("${transfer.retention.cleanup.max-backoff:30s}") Duration maxBackoff) {
+        this.transferRepository = transferRepository;
+        this.dataSource = dataSource;
+        this.maxAge = maxAge;
+        this.chunkSize = chunkSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.maxRunDuration = maxRunDuration;
+        this.maxPoolUsage = maxPoolUsage;
+        this.maxChunkDuration = maxChunkDuration;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Scheduled(initialDelayString = "${transfer.retention.cleanup.initial-delay:PT1M}",
+            fixedDelayString = "${transfer.retention.cleanup.delay:PT5M}")
     public void cleanupOldTransfers() {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(24);
-        int deleted = transferRepository.deleteByCreatedAtBefore(cutoff);
-        log.info("Deleted {} transfer(s) older than 24 hours", deleted);
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        long deadline = System.nanoTime() + maxRunDuration.toNanos();
+        long backoffMillis = 0;
+        long deleted = 0;
+        List<CleanupKey> chunk = transferRepository.findByCreatedAtBeforeOrderByCreatedAtAscIdAsc(cutoff, PageRequest.of(0, chunkSize));
+        while (!chunk.isEmpty() && System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            int count = transferRepository.deleteByIdIn(chunk.stream().map(CleanupKey::getId).toList());
+            long chunkNanos = System.nanoTime() - start;
+            deleted += count;
+            rowsDeleted.add(count);
+            lastChunkMillis.set(Duration.ofNanos(chunkNanos).toMillis());
+
+            // Stay under the rows-per-second ceiling, and back off while the database is under pressure
+            long pauseMillis = Math.max(0, count * 1000L / maxRowsPerSecond - Duration.ofNanos(chunkNanos).toMillis());
+            if (chunkNanos > maxChunkDuration.toNanos() || poolUsage() > maxPoolUsage) {
+                backoffMillis = Math.min(Math.max(backoffMillis * 2, 100), maxBackoff.toMillis());
+                log.debug("Transfer cleanup backing off for {} ms", backoffMillis);
+            } else {
+                backoffMillis = 0;
+            }
+            if (!sleep(Math.max(pauseMillis, backoffMillis))) {
+                break;
+            }
+            // Keyset continuation skips index entries of rows deleted by earlier chunks
+            CleanupKey last = chunk.get(chunk.size() - 1);
+            chunk = transferRepository.findCleanupKeysAfter(cutoff, last.getCreatedAt(), last.getId(), PageRequest.of(0, chunkSize));
+        }
+        updateLag(cutoff);
+        log.info("Deleted {} transfer(s) older than {}, {} s behind the cutoff", deleted, maxAge, lagSeconds.get());
+    }
+
+    private void updateLag(LocalDateTime cutoff) {
+        List<CleanupKey> oldest = transferRepository.findByCreatedAtBeforeOrderByCreatedAtAscIdAsc(cutoff, PageRequest.of(0, 1));
+        lagSeconds.set(oldest.isEmpty() ? 0 : Duration.between(oldest.get(0).getCreatedAt(), cutoff).toSeconds());
+    }
+
+    private double poolUsage() {
+        DataSource current = dataSource.getIfAvailable();
+        try {
+            // Unwraps the primary pool from a routing DataSource as well
+            if (current != null && current.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource hikari = current.unwrap(HikariDataSource.class);
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                if (pool != null && hikari.getMaximumPoolSize() > 0) {
+                    return (double) pool.getActiveConnections() / hikari.getMaximumPoolSize();
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("Could not read connection pool usage: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    private static boolean sleep(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return transfers deleted since startup.
+     */
+    public long getRowsDeleted() {
+        return rowsDeleted.sum();
+    }
+
+    /**
+     * @return duration of the most recent chunk delete in milliseconds.
+     */
+    public long getLastChunkMillis() {
+        return lastChunkMillis.get();
+    }
+
+    /**
+     * @return age of the oldest expired transfer beyond the cutoff after the last run, 0 when caught up.
+     */
+    public long getLagSeconds() {
+        return lagSeconds.get();
     }
 }
@@ -0,0 +1,171 @@
+package com.wallet.transfer.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Retention for a TRANSFER table range partitioned by created_at (see db/init.sql).
+ * <p>
+ * Partitions for the next {@code transfer.retention.partition.premake} intervals are created ahead of time,
+ * and partitions that end before the retention cutoff are detached and dropped as a whole, so retention never
+ * deletes transfer rows one by one. Only the few rows that landed in the default partition, outside of every
+ * created range, are deleted in small batches, as are expired idempotency keys in TRANSFER_KEY. A key is only
+ * expired once its transfer is gone: dropping a partition fires no delete trigger, and a key removed while its
+ * row still exists would let a retry insert the transfer a second time.
+ * <p>
+ * Postgres refuses {@code DETACH PARTITION ... CONCURRENTLY} while the table has a default partition, which
+ * db/init.sql creates, so partitions are then detached with a plain DETACH, which briefly locks the table.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "transfer.retention.mode", havingValue = "partition")
+public class TransferPartitionManager {
+    static final String PARTITION_PREFIX = "transfer_p";
+    private static final DateTimeFormatter DAILY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter HOURLY = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration maxAge;
+    private final ChronoUnit interval;
+    private final int premake;
+    private final boolean detachConcurrently;
+    private final int deleteBatchSize;
+
+    public TransferPartitionManager(JdbcTemplate jdbcTemplate,
+                                    @Value("${transfer.retention.max-age:24h}") Duration maxAge,
+                                    @Value("${transfer.retention.partition.interval:days}") ChronoUnit interval,
+                                    @Value("${transfer.retention.partition.premake:3}") int premake,
+                                    @Value("${transfer.retention.partition.detach-concurrently:true}") boolean detachConcurrently,
+                                    @Value("${transfer.retention.partition.key-delete-batch-size:1000}") int keyDeleteBatchSize) {
+        if (interval != ChronoUnit.DAYS && interval != ChronoUnit.HOURS) {
+            throw new IllegalArgumentException("transfer.retention.partition.interval must be days or hours");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxAge = maxAge;
+        this.interval = interval;
+        this.premake = premake;
+        this.detachConcurrently = detachConcurrently;
+        this.deleteBatchSize = keyDeleteBatchSize;
+    }
+
+    @Scheduled(initialDelayString = "${transfer.retention.partition.initial-delay:PT10S}",
+            fixedRateString = "${transfer.retention.partition.rate:PT15M}")
+    public void maintainPartitions() {
+        // Partition bounds compare against created_at, which the database fills with its own clock
+        LocalDateTime now = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+        createPartitions(now);
+        dropExpiredPartitions(now.minus(maxAge));
+        // Only partitions ending before the cutoff are dropped, so rows of the cutoff's own interval remain
+        deleteExpiredKeys(now.minus(maxAge).truncatedTo(interval));
+    }
+
+    void createPartitions(LocalDateTime now) {
+        LocalDateTime start = now.truncatedTo(interval);
+        for (int i = 0; i <= premake; i++) {
+            LocalDateTime from = start.plus(i, interval);
+            String name = partitionName(from, interval);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF transfer FOR VALUES FROM ('"
+                        + BOUND.format(from) + "') TO ('" + BOUND.format(from.plus(1, interval)) + "')");
+            } catch (DataAccessException e) {
+                // Typically rows for this range already landed in the default partition
+                log.error("Could not create transfer partition {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    void dropExpiredPartitions(LocalDateTime cutoff) {
+        List<Partition> partitions = jdbcTemplate.query(
+                "SELECT c.relname, c.oid = t.partdefid AS is_default FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent JOIN pg_partitioned_table t ON t.partrelid = p.oid " +
+                        "WHERE p.relname = 'transfer'",
+                (rs, rowNum) -> new Partition(rs.getString("relname"), rs.getBoolean("is_default")));
+        Optional<String> defaultPartition = partitions.stream().filter(Partition::isDefault).map(Partition::name).findFirst();
+        // CONCURRENTLY only takes a SHARE UPDATE EXCLUSIVE lock on the parent, but is not allowed next to a default partition
+        boolean concurrently = detachConcurrently && defaultPartition.isEmpty();
+        for (Partition partition : partitions) {
+            String name = partition.name();
+            Optional<LocalDateTime> from = partitionStart(name, interval);
+            if (from.isEmpty() || from.get().plus(1, interval).isAfter(cutoff)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("ALTER TABLE transfer DETACH PARTITION " + name + (concurrently ? " CONCURRENTLY" : ""));
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped transfer partition {} older than {}", name, cutoff);
+            } catch (DataAccessException e) {
+                log.error("Could not drop transfer partition {}: {}", name, e.getMessage());
+            }
+        }
+        defaultPartition.ifPresent(name -> deleteExpiredDefaultRows(name, cutoff));
+    }
+
+    void deleteExpiredDefaultRows(String defaultPartition, LocalDateTime cutoff) {
+        int deleted;
+        long total = 0;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM " + defaultPartition + " WHERE id IN " +
+                    "(SELECT id FROM " + defaultPartition + " WHERE created_at < ? LIMIT ?)", cutoff, deleteBatchSize);
+            total += deleted;
+        } while (deleted == deleteBatchSize);
+        if (total > 0) {
+            log.info("Deleted {} transfer(s) older than {} from the default partition {}", total, cutoff, defaultPartition);
+        }
+    }
+
+    void deleteExpiredKeys(LocalDateTime cutoff) {
+        int deleted;
+        long total = 0;
+        do {
+            // A partition that failed to drop still holds its rows, and with them their keys
+            deleted = jdbcTemplate.update("DELETE FROM transfer_key WHERE transfer_id IN " +
+                    "(SELECT k.transfer_id FROM transfer_key k WHERE k.created_at < ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM transfer t WHERE t.transfer_id = k.transfer_id) LIMIT ?)", cutoff, deleteBatchSize);
+            total += deleted;
+        } while (deleted == deleteBatchSize);
+        if (total > 0) {
+            log.info("Deleted {} idempotency key(s) older than {}", total, cutoff);
+        }
+    }
+
+    record Partition(String name, boolean isDefault) {
+    }
+
+    static String partitionName(LocalDateTime from, ChronoUnit interval) {
+        return PARTITION_PREFIX + (interval == ChronoUnit.HOURS ? HOURLY : DAILY).format(from);
+    }
+
+    /**
+     * @return the start of the range covered by a partition created by this class, empty for any other table.
+     */
+    static Optional<LocalDateTime> partitionStart(String name, ChronoUnit interval) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return Optional.empty();
+        }
+        String suffix = name.substring(PARTITION_PREFIX.length());
+        try {
+            if (interval == ChronoUnit.HOURS && suffix.length() == 10) {
+                return Optional.of(LocalDateTime.parse(suffix + "0000", DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
+            }
+            if (interval == ChronoUnit.DAYS && suffix.length() == 8) {
+                return Optional.of(LocalDateTime.parse(suffix + "000000", DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ignoring transfer partition with unexpected name {}", name);
+        }
+        return Optional.empty();
+    }
+}
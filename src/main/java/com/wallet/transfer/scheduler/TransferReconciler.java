@@ -0,0 +1,180 @@
+package com.wallet.transfer.scheduler;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.repository.TransferRepository;
+import com.wallet.transfer.service.TransferServiceProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Settles transfers whose ledger outcome is not known: UNKNOWN transfers (the ledger call timed out or failed
+ * with a 5xx) older than {@code min-age}, and PENDING transfers older than {@code stale-after}, whose node or
+ * worker presumably died mid-call. Transfers that still have an outbox entry are skipped: the outbox dispatcher is
+ * leasing or retrying their ledger call and finalizes them itself.
+ * <p>
+ * The ledger has no query API, so the original request is sent again with the original idempotency key; the ledger
+ * answers a repeated key with the first outcome, and the transfer is finalized guarded on the status it was read in.
+ * A cycle handles at most {@code batch-size} transfers, UNKNOWN first, with {@code parallelism} ledger calls at a
+ * time. Each node only looks at ids with {@code id % node-count == node-index} and walks them with a keyset cursor
+ * that wraps around, so transfers that stay unresolved do not block the ones behind them.
+ * <p>
+ * Disabled unless {@code transfer.reconciler.enabled=true}, and then {@code node-index} and {@code node-count} must
+ * be set: with a default single partition, every node would re-send every unresolved transfer.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "transfer.reconciler.enabled", havingValue = "true")
+public class TransferReconciler implements DisposableBean {
+
+    private final TransferServiceProcessor transferServiceProcessor;
+    private final TransferRepository transferRepository;
+    private final int batchSize;
+    private final int nodeIndex;
+    private final int nodeCount;
+    private final Duration minAge;
+    private final Duration staleAfter;
+    private final ExecutorService workers;
+
+    // Keyset cursors per status; cycles never overlap since the schedule has a fixed delay
+    private long unknownCursor;
+    private long pendingCursor;
+
+    private final LongAdder resolved = new LongAdder();
+    private final LongAdder unresolved = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private volatile long lagMillis;
+
+    public TransferReconciler(TransferServiceProcessor transferServiceProcessor,
+                              TransferRepository transferRepository,
+                              @Value("${transfer.reconciler.batch-size:100}") int batchSize,
+                              @Value("${transfer.reconciler.parallelism:4}") int parallelism,
+                              @Value("${transfer.reconciler.node-index}") int nodeIndex,
+                              @Value("${transfer.reconciler.node-count}") int nodeCount,
+                              @Value("${transfer.reconciler.min-age:10s}") Duration minAge,
+                              @Value("${transfer.reconciler.stale-after:10m}") Duration staleAfter) {
+        if (nodeCount < 1 || nodeIndex < 0 || nodeIndex >= nodeCount) {
+            throw new IllegalArgumentException("transfer.reconciler.node-index must be between 0 and node-count - 1");
+        }
+        this.transferServiceProcessor = transferServiceProcessor;
+        this.transferRepository = transferRepository;
+        this.batchSize = batchSize;
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+        this.minAge = minAge;
+        this.staleAfter = staleAfter;
+        this.workers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("transfer-reconciler-"));
+    }
+
+    @Scheduled(initialDelayString = "${transfer.reconciler.initial-delay:PT1M}",
+            fixedDelayString = "${transfer.reconciler.delay:PT30S}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Transfer> unknown = transferRepository.findUnresolvedAfter(TransferStatus.UNKNOWN, now.minus(minAge),
+                unknownCursor, nodeCount, nodeIndex, PageRequest.of(0, batchSize));
+        unknownCursor = next(unknown, batchSize);
+        List<Transfer> candidates = new ArrayList<>(unknown);
+        if (candidates.size() < batchSize) {
+            int remaining = batchSize - candidates.size();
+            List<Transfer> pending = transferRepository.findUnresolvedAfter(TransferStatus.PENDING, now.minus(staleAfter),
+                    pendingCursor, nodeCount, nodeIndex, PageRequest.of(0, remaining));
+            pendingCursor = next(pending, remaining);
+            candidates.addAll(pending);
+        }
+
+        List<CompletableFuture<Boolean>> calls = candidates.stream()
+                .map(transfer -> CompletableFuture.supplyAsync(() -> resolve(transfer), workers))
+                .toList();
+        long settled = calls.stream().filter(CompletableFuture::join).count();
+        updateLag(now);
+        if (!candidates.isEmpty()) {
+            log.info("Reconciled {} of {} unresolved transfer(s), oldest unresolved is {} ms old",
+                    settled, candidates.size(), lagMillis);
+        }
+    }
+
+    private boolean resolve(Transfer transfer) {
+        TransferRequestDTO request = new TransferRequestDTO(transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getAmount());
+        try {
+            TransferServiceProcessor.Resolution resolution = transferServiceProcessor.resolveTransfer(request,
+                    transfer.getTransferId(), transfer.getStatus(), transfer.getVersion() != null ? transfer.getVersion() : 0L);
+            if (resolution.finalized()) {
+                log.info("Resolved {} transfer {} as {}", transfer.getStatus(), transfer.getTransferId(), resolution.result().getStatus());
+                resolved.increment();
+            } else {
+                log.info("{} transfer {} was meanwhile changed elsewhere, now {}", transfer.getStatus(), transfer.getTransferId(),
+                        resolution.result().getStatus());
+                superseded.increment();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // Left as is and picked up again once the cursor wraps around
+            log.warn("Could not resolve {} transfer {}: {}", transfer.getStatus(), transfer.getTransferId(), e.getMessage());
+            unresolved.increment();
+            return false;
+        }
+    }
+
+    private static long next(List<Transfer> page, int limit) {
+        return page.size() < limit ? 0L : page.get(page.size() - 1).getId();
+    }
+
+    private void updateLag(LocalDateTime now) {
+        lagMillis = transferRepository.findOldestCreatedAt(List.of(TransferStatus.PENDING, TransferStatus.UNKNOWN), nodeCount, nodeIndex)
+                .map(oldest -> Math.max(0, Duration.between(oldest, now).toMillis()))
+                .orElse(0L);
+    }
+
+    /**
+     * @return transfers finalized by the reconciler since startup.
+     */
+    public long getResolved() {
+        return resolved.sum();
+    }
+
+    /**
+     * @return reconciliation attempts that failed and were left for a later cycle.
+     */
+    public long getUnresolved() {
+        return unresolved.sum();
+    }
+
+    /**
+     * @return transfers changed by someone else, e.g. another node or request, while the reconciler resolved them.
+     */
+    public long getSuperseded() {
+        return superseded.sum();
+    }
+
+    /**
+     * @return age of the oldest PENDING or UNKNOWN transfer in this node's partition after the last cycle.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
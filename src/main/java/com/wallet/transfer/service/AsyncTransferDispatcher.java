@@ -0,0 +1,177 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.repository.TransferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives ledger calls for transfers accepted with 202 by a bounded worker pool.
+ * <p>
+ * A submitted transfer is claimed as PENDING and queued; clients poll {@code GET /transfers/{id}}.
+ * PENDING rows older than {@code transfer.async.recovery-min-age}, left behind by a restart, are queued again by a
+ * recovery run every {@code transfer.async.recovery-delay}; younger ones may still be owned by another node or an
+ * in-flight request. Running it on a schedule rather than once at startup also picks up the transfers accepted
+ * shortly before a restart, once they have grown old enough. Transfers this node has queued or is running are
+ * skipped, so a deep queue does not get the same transfer twice.
+ * Used with {@code transfer.async.dispatch=queue}; see {@link OutboxTransferDispatcher} for the durable alternative.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${transfer.async.enabled:false} and '${transfer.async.dispatch:queue}' == 'queue'")
+public class AsyncTransferDispatcher implements TransferDispatcher, DisposableBean {
+    private static final int RECOVERY_PAGE_SIZE = 500;
+
+    private final TransferServiceProcessor transferServiceProcessor;
+    private final TransferRepository transferRepository;
+    private final ThreadPoolExecutor workers;
+    private final boolean callerRuns;
+    private final Duration retryAfter;
+    private final Duration recoveryMinAge;
+    // Keys queued or running on this node
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public AsyncTransferDispatcher(TransferServiceProcessor transferServiceProcessor,
+                                   TransferRepository transferRepository,
+                                   @Value("${transfer.async.workers:8}") int workerCount,
+                                   @Value("${transfer.async.queue-capacity:1000}") int queueCapacity,
+                                   @Value("${transfer.async.rejection-policy:abort}") String rejectionPolicy,
+                                   @Value("${transfer.async.retry-after:1s}") Duration retryAfter,
+                                   @Value("${transfer.async.recovery-min-age:5m}") Duration recoveryMinAge) {
+        this.transferServiceProcessor = transferServiceProcessor;
+        this.transferRepository = transferRepository;
+        this.retryAfter = retryAfter;
+        this.recoveryMinAge = recoveryMinAge;
+        this.callerRuns = callerRuns(rejectionPolicy);
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("transfer-async-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Recovery puts tasks straight into the queue, so the workers must already be running
+        this.workers.prestartAllCoreThreads();
+        log.info("Async transfer dispatcher started with {} worker(s), queue capacity {}, rejection policy {}",
+                workerCount, queueCapacity, rejectionPolicy);
+    }
+
+    private static boolean callerRuns(String rejectionPolicy) {
+        return switch (rejectionPolicy) {
+            case "abort" -> false;
+            case "caller-runs" -> true;
+            default -> throw new IllegalArgumentException("Unknown transfer.async.rejection-policy: " + rejectionPolicy
+                    + " (expected abort or caller-runs)");
+        };
+    }
+
+    /**
+     * Claim the transfer and queue its ledger call.
+     *
+     * @return PENDING result for a newly accepted transfer, the current result for a known key, or the final
+     *         result if the queue is full and the rejection policy is caller-runs.
+     * @throws ServiceOverloadedException if the queue is full and the rejection policy is abort.
+     */
+    @Override
+    public TransferResultDTO submit(TransferRequestDTO request, String idempotencyKey) {
+        Optional<TransferResultDTO> existing = transferServiceProcessor.claimTransfer(request, idempotencyKey);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        inFlight.add(idempotencyKey);
+        try {
+            workers.execute(() -> execute(request, idempotencyKey));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(idempotencyKey);
+            if (callerRuns) {
+                log.info("Async transfer queue full, processing idempotencyKey {} on the request thread", idempotencyKey);
+                return transferServiceProcessor.executeClaimedTransfer(request, idempotencyKey);
+            }
+            transferServiceProcessor.releaseClaim(idempotencyKey);
+            log.warn("Async transfer queue full, rejected idempotencyKey {}", idempotencyKey);
+            throw new ServiceOverloadedException("Transfer queue is full, retry later", retryAfter);
+        }
+        TransferResultDTO accepted = new TransferResultDTO();
+        accepted.setTransferId(idempotencyKey);
+        accepted.setStatus(TransferStatus.PENDING);
+        return accepted;
+    }
+
+    private void execute(TransferRequestDTO request, String idempotencyKey) {
+        try {
+            transferServiceProcessor.executeClaimedTransfer(request, idempotencyKey);
+        } catch (Exception e) {
+            log.error("Async transfer {} failed: {}", idempotencyKey, e.getMessage());
+        } finally {
+            inFlight.remove(idempotencyKey);
+        }
+    }
+
+    /**
+     * Queue stale PENDING transfers, such as those accepted before a restart. A full queue ends the run; the rest
+     * is queued by a later run, without holding up the scheduler thread the other scheduled jobs share.
+     */
+    @Scheduled(initialDelayString = "${transfer.async.recovery-initial-delay:PT10S}",
+            fixedDelayString = "${transfer.async.recovery-delay:PT1M}")
+    public void recoverPendingTransfers() {
+        BlockingQueue<Runnable> queue = workers.getQueue();
+        LocalDateTime cutoff = LocalDateTime.now().minus(recoveryMinAge);
+        long lastId = 0L;
+        int recovered = 0;
+        List<Transfer> page;
+        do {
+            page = transferRepository.findUnresolvedAfter(TransferStatus.PENDING, cutoff, lastId, 1, 0,
+                    PageRequest.of(0, RECOVERY_PAGE_SIZE));
+            for (Transfer transfer : page) {
+                lastId = transfer.getId();
+                String idempotencyKey = transfer.getTransferId();
+                if (!inFlight.add(idempotencyKey)) {
+                    continue;
+                }
+                TransferRequestDTO request = new TransferRequestDTO(transfer.getFromAccountId(),
+                        transfer.getToAccountId(), transfer.getAmount());
+                if (!queue.offer(() -> execute(request, idempotencyKey))) {
+                    inFlight.remove(idempotencyKey);
+                    log.info("Async transfer queue full, recovered {} pending transfer(s) so far", recovered);
+                    return;
+                }
+                recovered++;
+            }
+        } while (page.size() == RECOVERY_PAGE_SIZE);
+        if (recovered > 0) {
+            log.info("Recovered {} pending transfer(s) into the async queue", recovered);
+        }
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Async transfer workers did not finish in time, {} transfer(s) stay PENDING until the next start",
+                    workers.getQueue().size());
+            workers.shutdownNow();
+        }
+    }
+}
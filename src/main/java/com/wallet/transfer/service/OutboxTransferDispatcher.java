@@ -0,0 +1,242 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.client.LedgerClient;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.repository.TransferOutboxRepository;
+import com.wallet.transfer.repository.TransferOutboxRepository.OutboxEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable asynchronous dispatch through a transactional outbox ({@code transfer.async.dispatch=outbox}).
+ * <p>
+ * A submitted transfer is written as a PENDING row plus an outbox entry in one short transaction. Dispatcher
+ * workers on every node lease batches of entries (see {@link TransferOutboxRepository}), call the ledger with no
+ * transaction open and finalize each transfer together with the deletion of its entry as soon as its call returns.
+ * Nothing is kept in memory, so a restart or a crashed node only delays entries until their lease runs out; the
+ * ledger call is safe to repeat because it carries the transferId as Idempotency-Key, and finalizing is guarded on
+ * the PENDING status.
+ * <p>
+ * The calls of a batch run one after another, so {@code transfer.outbox.lease} must cover {@code batch-size} ledger
+ * calls at their connect and read timeouts; this is checked at startup. Entries whose lease would run out before
+ * their call could finish are handed back instead of being sent while another dispatcher may lease them.
+ * <p>
+ * A failed ledger call is retried with exponential backoff; after {@code transfer.outbox.max-attempts} the
+ * transfer is finalized as failed, or as UNKNOWN when the last attempt may have reached the ledger.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${transfer.async.enabled:false} and '${transfer.async.dispatch:queue}' == 'outbox'")
+public class OutboxTransferDispatcher implements TransferDispatcher, DisposableBean {
+    private final TransferServiceProcessor transferServiceProcessor;
+    private final TransferOutboxRepository transferOutboxRepository;
+    private final int workerCount;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Duration ledgerCallTimeout;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long lagMillis;
+
+    public OutboxTransferDispatcher(TransferServiceProcessor transferServiceProcessor,
+                                    TransferOutboxRepository transferOutboxRepository,
+                                    @Value("${transfer.outbox.workers:4}") int workerCount,
+                                    @Value("${transfer.outbox.batch-size:10}") int batchSize,
+                                    @Value("${transfer.outbox.poll-interval:200ms}") Duration pollInterval,
+                                    @Value("${transfer.outbox.lease:90s}") Duration lease,
+                                    @Value("${transfer.outbox.max-attempts:10}") int maxAttempts,
+                                    @Value("${transfer.outbox.retry-backoff:1s}") Duration retryBackoff,
+                                    @Value("${transfer.outbox.max-retry-backoff:1m}") Duration maxRetryBackoff,
+                                    @Value("${ledger-api.client.connect-timeout:2s}") Duration ledgerConnectTimeout,
+                                    @Value("${ledger-api.client.read-timeout:5s}") Duration ledgerReadTimeout,
+                                    PlatformTransactionManager transactionManager) {
+        this.ledgerCallTimeout = ledgerConnectTimeout.plus(ledgerReadTimeout);
+        if (lease.compareTo(ledgerCallTimeout.multipliedBy(batchSize)) <= 0) {
+            throw new IllegalArgumentException("transfer.outbox.lease (" + lease + ") must exceed batch-size (" + batchSize
+                    + ") ledger calls at ledger-api.client connect-timeout plus read-timeout (" + ledgerCallTimeout + ")");
+        }
+        this.transferServiceProcessor = transferServiceProcessor;
+        this.transferOutboxRepository = transferOutboxRepository;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("transfer-outbox-"));
+    }
+
+    /**
+     * Store the transfer and its outbox entry.
+     *
+     * @return PENDING result for a newly accepted transfer, or the current result for a known key.
+     */
+    @Override
+    public TransferResultDTO submit(TransferRequestDTO request, String idempotencyKey) {
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(idempotencyKey);
+        if (transferOutboxRepository.insertTransfer(idempotencyKey, request)) {
+            result.setStatus(TransferStatus.PENDING);
+            return result;
+        }
+        log.info("Duplicate transfer detected for idempotencyKey {}. Returning existing result.", idempotencyKey);
+        TransferStatusDTO existing = transferServiceProcessor.getTransferStatus(idempotencyKey);
+        result.setStatus(existing.getStatus());
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::dispatchLoop);
+        }
+        log.info("Outbox dispatcher started with {} worker(s), batch size {}, lease {}", workerCount, batchSize, lease);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<OutboxEntry> batch;
+            long leasedAt = System.nanoTime();
+            try {
+                batch = transferOutboxRepository.lease(batchSize, lease);
+            } catch (RuntimeException e) {
+                log.warn("Leasing outbox entries failed: {}", e.getMessage());
+                batch = List.of();
+            }
+            if (batch.isEmpty()) {
+                lagMillis = 0;
+                sleep(pollInterval);
+                continue;
+            }
+            lagMillis = Duration.between(batch.get(0).createdAt(), LocalDateTime.now()).toMillis();
+            try {
+                dispatch(batch, leasedAt + lease.toNanos());
+            } catch (RuntimeException e) {
+                // Entries left behind are leased again once their lease runs out
+                log.error("Dispatching {} outbox entries failed: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    void dispatch(List<OutboxEntry> batch, long leaseEndNanos) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (!running) {
+                break;
+            }
+            if (System.nanoTime() + ledgerCallTimeout.toNanos() > leaseEndNanos) {
+                // Another dispatcher may lease these before their calls could finish
+                List<OutboxEntry> remaining = batch.subList(i, batch.size());
+                log.warn("Handing back {} outbox entries whose lease runs out before their ledger calls could finish", remaining.size());
+                remaining.forEach(entry -> transferOutboxRepository.reschedule(entry.id(), LocalDateTime.now()));
+                break;
+            }
+            dispatch(batch.get(i));
+        }
+    }
+
+    private void dispatch(OutboxEntry entry) {
+        TransferResultDTO ledgerResult;
+        try {
+            ledgerResult = transferServiceProcessor.dispatchLedgerCall(entry.request(), entry.transferId());
+        } catch (RuntimeException e) {
+            if (entry.attempts() < maxAttempts || e instanceof ServiceOverloadedException) {
+                Duration backoff = e instanceof ServiceOverloadedException overloaded ? overloaded.getRetryAfter() : backoff(entry.attempts());
+                log.warn("Ledger call for outbox transfer {} failed (attempt {}), retrying in {}: {}",
+                        entry.transferId(), entry.attempts(), backoff, e.getMessage());
+                transferOutboxRepository.reschedule(entry.id(), LocalDateTime.now().plus(backoff));
+                retried.increment();
+                return;
+            }
+            boolean unknown = LedgerClient.isOutcomeUnknown(e);
+            log.error("Ledger call for outbox transfer {} failed after {} attempts, finalizing as {}: {}",
+                    entry.transferId(), entry.attempts(), unknown ? TransferStatus.UNKNOWN : TransferStatus.FAILURE, e.getMessage());
+            // An ambiguous last attempt is left to the reconciler rather than reported as failed
+            ledgerResult = unknown ? TransferResultDTO.unknown(entry.transferId(), e.getMessage()) : null;
+            failed.increment();
+        }
+        // Finalized in one transaction with the entry's deletion, so a transfer is never final while still queued;
+        // its result is cached once that transaction commits
+        Map<String, TransferResultDTO> ledgerResults = Collections.singletonMap(entry.transferId(), ledgerResult);
+        transactionTemplate.executeWithoutResult(status -> {
+            transferServiceProcessor.finalizeTransfers(ledgerResults, List.of());
+            transferOutboxRepository.delete(List.of(entry.id()));
+        });
+        dispatched.increment();
+    }
+
+    private Duration backoff(int attempts) {
+        long millis = retryBackoff.toMillis() << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(millis, maxRetryBackoff.toMillis()));
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return age of the oldest entry in the most recently leased batch, 0 when the outbox was empty.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Outbox workers did not finish in time; their entries are dispatched again after the lease");
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+
+/**
+ * Accepts transfers for asynchronous processing when {@code transfer.async.enabled} is set.
+ * {@code transfer.async.dispatch} selects the implementation: an in-memory worker queue or a database outbox.
+ */
+public interface TransferDispatcher {
+
+    /**
+     * Record the transfer as PENDING and schedule its ledger call.
+     *
+     * @return PENDING result for a newly accepted transfer, or the current result of a known key.
+     */
+    TransferResultDTO submit(TransferRequestDTO request, String idempotencyKey);
+}
@@ -0,0 +1,176 @@
+package com.wallet.transfer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.wallet.transfer.config.ReadReplicaRoutingDataSource;
+import com.wallet.transfer.dto.TransferHistoryDTO;
+import com.wallet.transfer.dto.TransferHistoryPageDTO;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.repository.TransferHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transfer history of an account, read from the replica when one is configured.
+ * Pages are addressed by an opaque cursor that encodes the (createdAt, id) position of the last row served.
+ * <p>
+ * An export holds a pooled connection and a read-only transaction until the client has read the last row, so at
+ * most {@code transfer.history.export-max-concurrent} exports run at a time and further ones are answered 503.
+ */
+@Slf4j
+@Service
+public class TransferHistoryService {
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final TransferHistoryRepository transferHistoryRepository;
+    private final ObjectWriter historyWriter;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int exportFetchSize;
+    private final Duration exportQueryTimeout;
+    private final Duration exportRetryAfter;
+    private final Semaphore exports;
+
+    public TransferHistoryService(TransferHistoryRepository transferHistoryRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${transfer.history.default-page-size:50}") int defaultPageSize,
+                                  @Value("${transfer.history.max-page-size:200}") int maxPageSize,
+                                  @Value("${transfer.history.export-fetch-size:1000}") int exportFetchSize,
+                                  @Value("${transfer.history.export-max-concurrent:4}") int exportMaxConcurrent,
+                                  @Value("${transfer.history.export-query-timeout:30s}") Duration exportQueryTimeout,
+                                  @Value("${transfer.history.export-retry-after:5s}") Duration exportRetryAfter) {
+        this.transferHistoryRepository = transferHistoryRepository;
+        this.historyWriter = objectMapper.writerFor(TransferHistoryDTO.class);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.exportFetchSize = exportFetchSize;
+        this.exportQueryTimeout = exportQueryTimeout;
+        this.exportRetryAfter = exportRetryAfter;
+        this.exports = new Semaphore(exportMaxConcurrent);
+    }
+
+    /**
+     * One page of the account's transfers, newest first.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the first page.
+     * @param limit  page size, or null for {@code transfer.history.default-page-size}; at most {@code transfer.history.max-page-size}.
+     */
+    public TransferHistoryPageDTO getHistory(Long accountId, String cursor, Integer limit) {
+        validateAccountId(accountId);
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        Cursor after = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : null;
+        // One row beyond the page tells whether there is a next page
+        List<TransferHistoryDTO> rows = ReadReplicaRoutingDataSource.onReplica(() -> transferHistoryRepository.findPage(
+                accountId, after != null ? after.createdAt() : null, after != null ? after.id() : null, pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new TransferHistoryPageDTO(rows, null);
+        }
+        List<TransferHistoryDTO> page = rows.subList(0, pageSize);
+        TransferHistoryDTO last = page.get(pageSize - 1);
+        return new TransferHistoryPageDTO(List.copyOf(page), encodeCursor(last.getCreatedAt(), last.getId()));
+    }
+
+    /**
+     * Write every transfer of the account to {@code output} as newline-delimited JSON, newest first,
+     * streaming rows from the database {@code transfer.history.export-fetch-size} at a time.
+     *
+     * @throws ServiceOverloadedException if {@code transfer.history.export-max-concurrent} exports are running.
+     */
+    public void exportHistory(Long accountId, OutputStream output) throws IOException {
+        openExport(accountId).writeTo(output);
+    }
+
+    /**
+     * Validate the account and take an export slot before the response is committed. The slot is released once
+     * the returned export has been written, or has failed.
+     *
+     * @throws ServiceOverloadedException if {@code transfer.history.export-max-concurrent} exports are running.
+     */
+    public HistoryExport openExport(Long accountId) {
+        validateAccountId(accountId);
+        if (!exports.tryAcquire()) {
+            log.warn("Rejected export of account {}, too many exports running", accountId);
+            throw new ServiceOverloadedException("Too many transfer exports running, retry later", exportRetryAfter);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return output -> {
+            try {
+                writeHistory(accountId, output);
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    exports.release();
+                }
+            }
+        };
+    }
+
+    private void writeHistory(long accountId, OutputStream output) throws IOException {
+        long[] rows = {0};
+        try {
+            ReadReplicaRoutingDataSource.onReplica(() -> {
+                transferHistoryRepository.streamAll(accountId, exportFetchSize, exportQueryTimeout, transfer -> {
+                    try {
+                        output.write(historyWriter.writeValueAsBytes(transfer));
+                        output.write(NEWLINE);
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        output.flush();
+        log.info("Exported {} transfer(s) of account {}", rows[0], accountId);
+    }
+
+    /**
+     * An export whose slot is taken; {@link #writeTo} streams it and frees the slot.
+     */
+    @FunctionalInterface
+    public interface HistoryExport {
+        void writeTo(OutputStream output) throws IOException;
+    }
+
+    private static void validateAccountId(Long accountId) {
+        if (accountId == null || accountId <= 0) {
+            throw new IllegalArgumentException("accountId must be a positive number");
+        }
+    }
+
+    static String encodeCursor(LocalDateTime createdAt, long id) {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(position.substring(0, separator)), Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    record Cursor(LocalDateTime createdAt, long id) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the transfer pipeline. All meters are registered up front with a fixed set of tags,
+ * so recording on the request path is a plain timer or counter update.
+ */
+@Component
+public class TransferMetrics {
+    static final String SUCCESS = "success";
+    static final String OTHER = "other";
+    static final String ERROR = "error";
+
+    private final Timer validation;
+    private final Timer idempotency;
+    private final Timer persist;
+    private final Timer ledgerSuccess;
+    private final Timer ledgerFailure;
+    private final Timer ledgerOther;
+    private final Timer ledgerError;
+    private final Counter fallbackTransfer;
+    private final Counter fallbackClaimed;
+    private final DistributionSummary batchSize;
+    private final Timer batchDuration;
+
+    public TransferMetrics(MeterRegistry registry) {
+        validation = phase(registry, "validation");
+        idempotency = phase(registry, "idempotency");
+        persist = phase(registry, "persist");
+        ledgerSuccess = ledger(registry, SUCCESS);
+        ledgerFailure = ledger(registry, TransferStatus.FAILURE);
+        ledgerOther = ledger(registry, OTHER);
+        ledgerError = ledger(registry, ERROR);
+        fallbackTransfer = fallback(registry, "transfer");
+        fallbackClaimed = fallback(registry, "claimed");
+        batchSize = DistributionSummary.builder("transfer.batch.size")
+                .description("Transfers per /transfers/batch request")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(20.0)
+                .register(registry);
+        batchDuration = Timer.builder("transfer.batch.duration")
+                .description("Time to process a /transfers/batch request, from claim to finalize")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer phase(MeterRegistry registry, String phase) {
+        return Timer.builder("transfer.phase")
+                .description("Time spent in one phase of processing a transfer")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer ledger(MeterRegistry registry, String outcome) {
+        return Timer.builder("transfer.ledger.call")
+                .description("Ledger transfer calls by outcome")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter fallback(MeterRegistry registry, String path) {
+        return Counter.builder("transfer.circuit.fallback")
+                .description("Transfers answered by a circuit breaker fallback")
+                .tag("path", path)
+                .register(registry);
+    }
+
+    public void recordValidation(long startNanos) {
+        validation.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordIdempotency(long startNanos) {
+        idempotency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPersist(long startNanos) {
+        persist.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a ledger call; the outcome tag is derived from the returned status, or {@code error} if the call threw.
+     */
+    public void recordLedgerCall(long startNanos, TransferResultDTO ledgerResult, boolean failed) {
+        Timer timer;
+        if (failed) {
+            timer = ledgerError;
+        } else if (ledgerResult == null || TransferStatus.FAILURE.equals(ledgerResult.getStatus())) {
+            timer = ledgerFailure;
+        } else if (SUCCESS.equals(ledgerResult.getStatus())) {
+            timer = ledgerSuccess;
+        } else {
+            timer = ledgerOther;
+        }
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFallback(boolean claimed) {
+        (claimed ? fallbackClaimed : fallbackTransfer).increment();
+    }
+
+    public void recordBatch(int size, long startNanos) {
+        batchSize.record(size);
+        batchDuration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,362 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.client.LedgerClient;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.repository.TransferRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Degraded mode for an open {@code ledgerService} circuit, enabled with {@code transfer.buffer.enabled}.
+ * <p>
+ * Instead of failing, transfers refused by the open circuit are stored as QUEUED transfer rows, so the buffer
+ * survives restarts and the key keeps its idempotency guarantees. Up to {@code transfer.buffer.capacity}
+ * transfers are buffered; beyond that the usual failure is returned.
+ * <p>
+ * When the circuit moves to half-open or closed, and on every sweep while it is not open, the buffer is replayed
+ * in id order, {@code batch-size} transfers at a time and at no more than {@code drain-rate} transfers per second.
+ * A replayed transfer is first claimed QUEUED to PENDING, so only one node sends it; a node that dies mid-call
+ * leaves it PENDING for the reconciler. A replay that did not reach the ledger, or found it overloaded, is queued
+ * again; a 4xx refusal fails the transfer right away, as it does on the synchronous path. Transfers still queued
+ * after {@code max-age} are finalized as failed, which is safe since they were never sent to the ledger.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transfer.buffer.enabled", havingValue = "true")
+public class TransferReplayBuffer implements DisposableBean {
+    private final TransferServiceProcessor transferServiceProcessor;
+    private final TransferRepository transferRepository;
+    private final CircuitBreaker circuitBreaker;
+    private final long capacity;
+    private final Duration maxAge;
+    private final int drainRate;
+    private final int batchSize;
+    private final ExecutorService drainer;
+    private final ExecutorService replayers;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    // Approximate number of QUEUED transfers: counted locally and recounted from the table on every sweep
+    private final AtomicLong size = new AtomicLong();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile long oldestAgeMillis;
+
+    public TransferReplayBuffer(TransferServiceProcessor transferServiceProcessor,
+                                TransferRepository transferRepository,
+                                CircuitBreakerRegistry circuitBreakerRegistry,
+                                @Value("${transfer.buffer.capacity:10000}") long capacity,
+                                @Value("${transfer.buffer.max-age:10m}") Duration maxAge,
+                                @Value("${transfer.buffer.drain-rate:50}") int drainRate,
+                                @Value("${transfer.buffer.batch-size:10}") int batchSize) {
+        if (drainRate < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("transfer.buffer.drain-rate and batch-size must be positive");
+        }
+        this.transferServiceProcessor = transferServiceProcessor;
+        this.transferRepository = transferRepository;
+        this.capacity = capacity;
+        this.maxAge = maxAge;
+        this.drainRate = drainRate;
+        this.batchSize = batchSize;
+        this.drainer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("transfer-replay-"));
+        this.replayers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("transfer-replay-call-", 0).factory());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("ledgerService");
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.State state = event.getStateTransition().getToState();
+            if (state == CircuitBreaker.State.HALF_OPEN || state == CircuitBreaker.State.CLOSED) {
+                drain();
+            }
+        });
+        log.info("Transfer replay buffer enabled: capacity {}, max age {}, drain rate {}/s", capacity, maxAge, drainRate);
+    }
+
+    /**
+     * Buffer a transfer refused by the open circuit. Nothing was claimed for it yet.
+     *
+     * @return the QUEUED result, the current result if the key is already known, or empty if the buffer is full.
+     */
+    public Optional<TransferResultDTO> offer(TransferRequestDTO request, String idempotencyKey) {
+        if (!reserve()) {
+            return Optional.empty();
+        }
+        if (transferRepository.insertIfAbsent(idempotencyKey, request.getFromAccountId(), request.getToAccountId(),
+                request.getAmount(), TransferStatus.QUEUED) == 1) {
+            queued.increment();
+            log.info("Ledger circuit open, queued transfer {}", idempotencyKey);
+            return Optional.of(result(idempotencyKey, TransferStatus.QUEUED));
+        }
+        size.decrementAndGet();
+        log.info("Duplicate transfer detected for idempotencyKey {}. Returning existing result.", idempotencyKey);
+        return transferRepository.findByTransferId(idempotencyKey).map(existing -> result(idempotencyKey, existing.getStatus()));
+    }
+
+    /**
+     * Buffer a claimed PENDING transfer whose ledger call was refused by the open circuit.
+     *
+     * @return the QUEUED result, or empty if the buffer is full or the transfer is no longer PENDING.
+     */
+    public Optional<TransferResultDTO> requeue(String idempotencyKey) {
+        if (!reserve()) {
+            return Optional.empty();
+        }
+        if (transferRepository.updateStatus(idempotencyKey, TransferStatus.PENDING, TransferStatus.QUEUED) == 1) {
+            queued.increment();
+            log.info("Ledger circuit open, queued claimed transfer {}", idempotencyKey);
+            return Optional.of(result(idempotencyKey, TransferStatus.QUEUED));
+        }
+        size.decrementAndGet();
+        return Optional.empty();
+    }
+
+    private boolean reserve() {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Start replaying the buffer in the background unless a replay is already running.
+     */
+    public void drain() {
+        if (running && draining.compareAndSet(false, true)) {
+            drainer.execute(() -> {
+                try {
+                    replayAll();
+                } catch (RuntimeException e) {
+                    log.warn("Replaying queued transfers failed: {}", e.getMessage());
+                } finally {
+                    draining.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Expire old entries, recount the buffer and replay it if the circuit lets calls through. Covers entries
+     * buffered by other nodes or before a restart, which no state transition on this node announces.
+     */
+    @Scheduled(initialDelayString = "${transfer.buffer.sweep-interval:PT10S}",
+            fixedDelayString = "${transfer.buffer.sweep-interval:PT10S}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        long lastId = 0L;
+        List<Transfer> page;
+        do {
+            page = transferRepository.findUnresolvedAfter(TransferStatus.QUEUED, cutoff, lastId, 1, 0, PageRequest.of(0, batchSize));
+            for (Transfer transfer : page) {
+                expire(transfer);
+                lastId = transfer.getId();
+            }
+        } while (page.size() == batchSize);
+        refresh();
+        if (size.get() > 0 && circuitBreaker.getState() != CircuitBreaker.State.OPEN) {
+            drain();
+        }
+    }
+
+    private void replayAll() {
+        long lastId = 0L;
+        while (running && circuitBreaker.getState() != CircuitBreaker.State.OPEN) {
+            List<Transfer> batch = transferRepository.findByStatusAndIdGreaterThanOrderByIdAsc(TransferStatus.QUEUED, lastId,
+                    PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            long start = System.nanoTime();
+            List<CompletableFuture<Void>> calls = batch.stream()
+                    .map(transfer -> CompletableFuture.runAsync(() -> replay(transfer), replayers))
+                    .toList();
+            calls.forEach(CompletableFuture::join);
+            // Pace the batches to drain-rate transfers per second so the recovering ledger is not flooded
+            long pauseNanos = batch.size() * TimeUnit.SECONDS.toNanos(1) / drainRate - (System.nanoTime() - start);
+            if (pauseNanos > 0 && !sleep(pauseNanos)) {
+                break;
+            }
+        }
+        refresh();
+    }
+
+    private void replay(Transfer transfer) {
+        String idempotencyKey = transfer.getTransferId();
+        if (transfer.getCreatedAt() != null && transfer.getCreatedAt().isBefore(LocalDateTime.now().minus(maxAge))) {
+            expire(transfer);
+            return;
+        }
+        // Claim the entry so only one node sends it
+        if (transferRepository.updateStatus(idempotencyKey, TransferStatus.QUEUED, TransferStatus.PENDING) != 1) {
+            return;
+        }
+        size.decrementAndGet();
+        TransferRequestDTO request = new TransferRequestDTO(transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getAmount());
+        long version = (transfer.getVersion() != null ? transfer.getVersion() : 0L) + 1;
+        try {
+            TransferServiceProcessor.Resolution resolution = transferServiceProcessor.resolveTransfer(request, idempotencyKey,
+                    TransferStatus.PENDING, version);
+            if (resolution.finalized()) {
+                replayed.increment();
+                log.info("Replayed queued transfer {} as {}", idempotencyKey, resolution.result().getStatus());
+            } else {
+                superseded.increment();
+                log.info("Replayed transfer {} was meanwhile changed elsewhere, now {}", idempotencyKey, resolution.result().getStatus());
+            }
+        } catch (RuntimeException e) {
+            if (isRejected(e)) {
+                if (transferRepository.updateStatus(idempotencyKey, TransferStatus.PENDING, TransferStatus.FAILURE) == 1) {
+                    failed.increment();
+                }
+                log.warn("Replay of queued transfer {} was refused by the ledger: {}", idempotencyKey, e.getMessage());
+            } else if (isNotSent(e)) {
+                if (transferRepository.updateStatus(idempotencyKey, TransferStatus.PENDING, TransferStatus.QUEUED) == 1) {
+                    size.incrementAndGet();
+                    log.warn("Replay of queued transfer {} failed, queued again: {}", idempotencyKey, e.getMessage());
+                }
+            } else {
+                // Possibly applied, or failed in a way that says nothing about the ledger: a re-send settles it
+                transferRepository.updateStatus(idempotencyKey, TransferStatus.PENDING, TransferStatus.UNKNOWN);
+                log.warn("Replay of queued transfer {} has an unknown outcome, left to the reconciler: {}", idempotencyKey, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A definitive 4xx refusal; 429 only asks to slow down.
+     */
+    private static boolean isRejected(RuntimeException e) {
+        return e instanceof HttpClientErrorException && !(e instanceof HttpClientErrorException.TooManyRequests);
+    }
+
+    /**
+     * The replay did not reach the ledger, or the ledger turned it away as overloaded, so it can be sent again later.
+     */
+    private static boolean isNotSent(RuntimeException e) {
+        if (e instanceof CallNotPermittedException || e instanceof ServiceOverloadedException
+                || e instanceof HttpClientErrorException.TooManyRequests || e instanceof HttpServerErrorException.ServiceUnavailable) {
+            return true;
+        }
+        return e instanceof ResourceAccessException && !LedgerClient.isOutcomeUnknown(e);
+    }
+
+    private void expire(Transfer transfer) {
+        if (transferRepository.updateStatus(transfer.getTransferId(), TransferStatus.QUEUED, TransferStatus.FAILURE) == 1) {
+            size.decrementAndGet();
+            expired.increment();
+            log.warn("Queued transfer {} expired after {} without reaching the ledger", transfer.getTransferId(), maxAge);
+        }
+    }
+
+    private void refresh() {
+        size.set(transferRepository.countByStatus(TransferStatus.QUEUED));
+        LocalDateTime now = LocalDateTime.now();
+        oldestAgeMillis = transferRepository.findOldestCreatedAt(List.of(TransferStatus.QUEUED), 1, 0)
+                .map(oldest -> Math.max(0, Duration.between(oldest, now).toMillis()))
+                .orElse(0L);
+    }
+
+    private static TransferResultDTO result(String idempotencyKey, String status) {
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(idempotencyKey);
+        result.setStatus(status);
+        return result;
+    }
+
+    private static boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public long getSize() {
+        return Math.max(0, size.get());
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    public long getReplayed() {
+        return replayed.sum();
+    }
+
+    /**
+     * @return replayed transfers that someone else, such as the reconciler, changed before the replay could finalize them.
+     */
+    public long getSuperseded() {
+        return superseded.sum();
+    }
+
+    /**
+     * @return replayed transfers the ledger refused with a 4xx, finalized as failed.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return age of the oldest queued transfer as of the last sweep or replay, 0 when the buffer was empty.
+     */
+    public long getOldestAgeMillis() {
+        return oldestAgeMillis;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        drainer.shutdown();
+        if (!drainer.awaitTermination(10, TimeUnit.SECONDS)) {
+            drainer.shutdownNow();
+        }
+        replayers.shutdown();
+    }
+}
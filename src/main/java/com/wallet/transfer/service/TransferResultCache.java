@@ -0,0 +1,75 @@
+package com.wallet.transfer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Size- and TTL-bounded cache of finalized transfer results keyed by transferId.
+ * Finalized results never change, so the cache is consulted before {@code TransferRepository} for
+ * idempotent retries and status polling. PENDING results are never cached.
+ */
+@Component
+public class TransferResultCache {
+    private final Cache<String, CachedStatus> statusByTransferId;
+
+    public TransferResultCache(@Value("${transfer.cache.max-size:100000}") long maxSize,
+                               @Value("${transfer.cache.ttl:10m}") Duration ttl) {
+        this.statusByTransferId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<TransferResultDTO> get(String transferId) {
+        CachedStatus cached = statusByTransferId.getIfPresent(transferId);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(transferId);
+        result.setStatus(cached.status());
+        return Optional.of(result);
+    }
+
+    public Optional<TransferStatusDTO> getStatus(String transferId) {
+        CachedStatus cached = statusByTransferId.getIfPresent(transferId);
+        return cached == null ? Optional.empty() : Optional.of(new TransferStatusDTO(transferId, cached.status(), cached.version()));
+    }
+
+    /**
+     * Cache the status of a transfer and the row version it was written with, if the status is final.
+     */
+    public void put(String transferId, String status, long version) {
+        if (transferId != null && TransferStatus.isFinal(status)) {
+            statusByTransferId.put(transferId, new CachedStatus(status, version));
+        }
+    }
+
+    public void invalidate(String transferId) {
+        statusByTransferId.invalidate(transferId);
+    }
+
+    /**
+     * @return hit, miss and eviction counters since startup.
+     */
+    public CacheStats stats() {
+        return statusByTransferId.stats();
+    }
+
+    public Cache<String, ?> getNativeCache() {
+        return statusByTransferId;
+    }
+
+    private record CachedStatus(String status, long version) {
+    }
+}
@@ -2,24 +2,86 @@ package com.wallet.transfer.service;
 
 import com.example.common.exception.ValidationError;
 import com.example.common.exception.ValidationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.transfer.dto.BulkTransferStatusDTO;
 import com.wallet.transfer.dto.TransferRequestDTO;
 import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
+import com.wallet.transfer.dto.TransferStreamItemDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.util.StripedSerialExecutor;
 import com.wallet.transfer.util.TransferValidator;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class TransferService {
+    private static final byte[] NEWLINE = {'\n'};
+
     TransferServiceProcessor  transferServiceProcessor;
+    private final Executor transferExecutor;
+    private final ObjectMapper objectMapper;
+    private final int streamMaxInFlight;
+    private final TransferDispatcher transferDispatcher;
+    private final TransferSingleFlight transferSingleFlight;
+    private final TransferMetrics transferMetrics;
+    private final int bulkStatusMaxIds;
+    private final StripedSerialExecutor transferLaneExecutor;
+    private final Duration laneRetryAfter;
 
-    public TransferService(TransferServiceProcessor transferServiceProcessor) {
+    public TransferService(TransferServiceProcessor transferServiceProcessor,
+                           TransferSingleFlight transferSingleFlight,
+                           @Qualifier("transferExecutor") Executor transferExecutor,
+                           ObjectMapper objectMapper,
+                           @Value("${transfer.stream.max-in-flight:64}") int streamMaxInFlight,
+                           ObjectProvider<TransferDispatcher> transferDispatcher,
+                           TransferMetrics transferMetrics,
+                           @Value("${transfer.status.bulk.max-ids:10000}") int bulkStatusMaxIds,
+                           ObjectProvider<StripedSerialExecutor> transferLaneExecutor,
+                           @Value("${transfer.lanes.retry-after:1s}") Duration laneRetryAfter) {
         this.transferServiceProcessor = transferServiceProcessor;
+        this.transferSingleFlight = transferSingleFlight;
+        this.transferMetrics = transferMetrics;
+        this.transferExecutor = transferExecutor;
+        this.objectMapper = objectMapper;
+        this.streamMaxInFlight = streamMaxInFlight;
+        this.transferDispatcher = transferDispatcher.getIfAvailable();
+        this.bulkStatusMaxIds = bulkStatusMaxIds;
+        this.transferLaneExecutor = transferLaneExecutor.getIfAvailable();
+        this.laneRetryAfter = laneRetryAfter;
     }
 
     /**
@@ -35,17 +97,133 @@ public class TransferService {
         TransferResultDTO resultDTO;
 
         //validate requestDTO
-        List<ValidationError> validationErrors = TransferValidator.validateTransformerRequest(requestDTO);
+        List<ValidationError> validationErrors = validate(requestDTO);
         if (!validationErrors.isEmpty()) {
             log.error("Validation errors: {}", validationErrors);
             throw new IllegalArgumentException("Invalid transfer request: " + validationErrors);
         }
-        //delegate to processor
-        resultDTO = transferServiceProcessor.processTransfer(requestDTO, idempotencyKey);
+        //delegate to processor, concurrent callers with the same key share one execution
+        resultDTO = transferSingleFlight.execute(idempotencyKey, () -> processOnLane(requestDTO, idempotencyKey));
         return resultDTO;
     }
 
+    private List<ValidationError> validate(TransferRequestDTO requestDTO) {
+        long start = System.nanoTime();
+        try {
+            return TransferValidator.validateTransformerRequest(requestDTO);
+        } finally {
+            transferMetrics.recordValidation(start);
+        }
+    }
+
+    /**
+     * Process the transfer on the lane of its source account when lanes are enabled, otherwise on this thread.
+     * The key is claimed on this thread, so a duplicate waiting for another request's result never holds a lane;
+     * only the ledger call and finalization run on it. Transfers submitted with {@link #submitTransfer} do not use
+     * the lanes: their ledger calls are driven by the async dispatcher's own workers.
+     */
+    private TransferResultDTO processOnLane(TransferRequestDTO requestDTO, String idempotencyKey) {
+        if (transferLaneExecutor == null) {
+            return transferServiceProcessor.processTransfer(requestDTO, idempotencyKey);
+        }
+        Optional<TransferResultDTO> existing = transferServiceProcessor.claimTransfer(requestDTO, idempotencyKey);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        CompletableFuture<TransferResultDTO> result;
+        try {
+            result = submitToLane(requestDTO, () -> transferServiceProcessor.processClaimedTransfer(requestDTO, idempotencyKey));
+        } catch (ServiceOverloadedException e) {
+            // Nothing reached the ledger, so a retry with the same key may proceed
+            transferServiceProcessor.releaseClaim(idempotencyKey);
+            throw e;
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<TransferResultDTO> callLedgerAsync(TransferRequestDTO request, String idempotencyKey) {
+        Supplier<TransferResultDTO> call = () -> transferServiceProcessor.callLedger(request, idempotencyKey);
+        if (transferLaneExecutor == null) {
+            return CompletableFuture.supplyAsync(call, transferExecutor);
+        }
+        try {
+            return submitToLane(request, call);
+        } catch (ServiceOverloadedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<TransferResultDTO> submitToLane(TransferRequestDTO request, Supplier<TransferResultDTO> call) {
+        // Lane threads are shared, so the caller's MDC (correlationId) is carried over and the lane's restored after
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        Supplier<TransferResultDTO> task = () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setMdc(mdc);
+            try {
+                return call.get();
+            } finally {
+                setMdc(previous);
+            }
+        };
+        try {
+            return transferLaneExecutor.submit(request.getFromAccountId(), task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Transfer lane of account {} is full", request.getFromAccountId());
+            throw new ServiceOverloadedException("Too many transfers queued for account " + request.getFromAccountId()
+                    + ", retry later", laneRetryAfter);
+        }
+    }
+
+    private static void setMdc(Map<String, String> mdc) {
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        } else {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * @return true if {@code transfer.async.enabled} is set and transfers should be submitted with {@link #submitTransfer}.
+     */
+    public boolean isAsyncEnabled() {
+        return transferDispatcher != null;
+    }
+
+    /**
+     * Validate and accept a transfer for asynchronous processing.
+     *
+     * @param requestDTO     The Transfer data to create.
+     * @param idempotencyKey The idempotencyKey for the request.
+     * @return PENDING result for a newly accepted transfer, or the current result of a known key.
+     */
+    public TransferResultDTO submitTransfer(TransferRequestDTO requestDTO, String idempotencyKey) {
+        log.info("Submitting async transfer with idempotencyKey {}", idempotencyKey);
+        if (transferDispatcher == null) {
+            throw new IllegalStateException("Asynchronous transfer submission is disabled");
+        }
+        List<ValidationError> validationErrors = validate(requestDTO);
+        if (!validationErrors.isEmpty()) {
+            log.error("Validation errors: {}", validationErrors);
+            throw new IllegalArgumentException("Invalid transfer request: " + validationErrors);
+        }
+        return transferDispatcher.submit(requestDTO, idempotencyKey);
+    }
+
     public String getTransferById(String transferId) {
+        return getTransferStatus(transferId).getStatus();
+    }
+
+    /**
+     * Fetch the status of a transfer together with its row version, for conditional status polling.
+     */
+    public TransferStatusDTO getTransferStatus(String transferId) {
         log.info("Fetching transfer with transferId: {}", transferId);
 
         //validate input
@@ -60,13 +238,80 @@ public class TransferService {
         }
 
         try {
-            return transferServiceProcessor.getTransferById(transferId).getStatus();
+            return transferServiceProcessor.getTransferStatus(transferId);
         } catch (Exception e) {
             log.error("Error fetching transfer with transferId {}: {}", transferId, e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Look up the statuses of many transfers at once, e.g. for reconciliation.
+     *
+     * @param transferIds up to {@code transfer.status.bulk.max-ids} transferIds; blanks and repeats are ignored.
+     * @return statuses of the known transfers in request order, and the ids that were not found.
+     */
+    public BulkTransferStatusDTO getTransferStatuses(Collection<String> transferIds) {
+        Set<String> distinctIds = new LinkedHashSet<>();
+        for (String transferId : transferIds) {
+            addTransferId(distinctIds, transferId);
+        }
+        return lookupTransferStatuses(distinctIds);
+    }
+
+    /**
+     * Same as {@link #getTransferStatuses(Collection)} for a plain-text body with one transferId per line,
+     * read line by line instead of being parsed as a whole.
+     */
+    public BulkTransferStatusDTO getTransferStatuses(InputStream input) throws IOException {
+        Set<String> distinctIds = new LinkedHashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            addTransferId(distinctIds, line.strip());
+        }
+        return lookupTransferStatuses(distinctIds);
+    }
+
+    private void addTransferId(Set<String> distinctIds, String transferId) {
+        if (transferId == null || transferId.isBlank()) {
+            return;
+        }
+        if (distinctIds.add(transferId) && distinctIds.size() > bulkStatusMaxIds) {
+            throw new IllegalArgumentException("At most " + bulkStatusMaxIds + " transfer ids per request");
+        }
+    }
+
+    private BulkTransferStatusDTO lookupTransferStatuses(Set<String> transferIds) {
+        if (transferIds.isEmpty()) {
+            throw new IllegalArgumentException("No transfer ids given");
+        }
+        log.info("Fetching statuses of {} transfers", transferIds.size());
+        Map<String, TransferStatusDTO> found = transferServiceProcessor.getTransferStatuses(transferIds);
+        Map<String, String> statuses = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String transferId : transferIds) {
+            TransferStatusDTO status = found.get(transferId);
+            if (status != null) {
+                statuses.put(transferId, status.getStatus());
+            } else {
+                unknown.add(transferId);
+            }
+        }
+        return new BulkTransferStatusDTO(statuses, unknown);
+    }
+
+    /**
+     * Process a batch of transfers with one batched claim and one batched finalize, calling the ledger
+     * for the claimed items in parallel.
+     * <p>
+     * Items fail independently: an invalid item or a failed ledger call yields a failure result with an
+     * error message while the rest of the batch is applied. Items repeating an idempotency key share its result,
+     * as do items whose key is being processed by another request on this node.
+     * With {@code transfer.lanes.enabled}, items debiting the same account call the ledger one after another in request order.
+     *
+     * @return one result per request, in request order.
+     */
     public List<TransferResultDTO> transferBatch(List<TransferRequestDTO> transferRequests, List<String> idempotencyKeys) {
         if (transferRequests == null) {
             throw new IllegalArgumentException("Transfer requests must be non-null");
@@ -80,37 +325,148 @@ public class TransferService {
         if (transferRequests.size() != idempotencyKeys.size()) {
             throw new IllegalArgumentException("The number of idempotency keys must match the number of transfer requests");
         }
-        List<CompletableFuture<TransferResultDTO>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        // Validate each item up front; invalid items and repeated keys are reported per item
+        TransferResultDTO[] results = new TransferResultDTO[transferRequests.size()];
+        Map<String, TransferRequestDTO> requests = new LinkedHashMap<>();
         for (int i = 0; i < transferRequests.size(); i++) {
-            final TransferRequestDTO req = transferRequests.get(i);
-            final String idempotencyKey = idempotencyKeys.get(i);
-            int finalI = i;
-            CompletableFuture<TransferResultDTO> future = CompletableFuture.supplyAsync(() -> {
-                try {
-                    // If you want to pass idempotencyKey to processor, add an overloaded method
-                    return transferServiceProcessor.processTransfer(req, idempotencyKey);
-                } catch (Exception e) {
-                    log.error("Error processing transfer batch item {}: {}", finalI, e.getMessage());
-                    TransferResultDTO failed = new TransferResultDTO();
-                    failed.setStatus("failure");
-                    failed.setTransferId(null);
-                    return failed;
+            String idempotencyKey = idempotencyKeys.get(i);
+            List<ValidationError> validationErrors = validate(transferRequests.get(i));
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                results[i] = TransferResultDTO.failure(idempotencyKey, "Idempotency key must be non-empty");
+            } else if (!validationErrors.isEmpty()) {
+                results[i] = TransferResultDTO.failure(idempotencyKey, "Invalid transfer request: " + validationErrors);
+            } else {
+                requests.putIfAbsent(idempotencyKey, transferRequests.get(i));
+            }
+        }
+
+        // Items whose key is already in flight on this node share that result instead of claiming it again
+        Map<String, TransferResultDTO> resultsByKey = transferSingleFlight.executeAll(requests.keySet(),
+                keys -> processClaimedBatch(keys, requests));
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = resultsByKey.get(idempotencyKeys.get(i));
+            }
+        }
+        transferMetrics.recordBatch(results.length, start);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * One batched claim, parallel ledger calls, one batched finalize.
+     */
+    private Map<String, TransferResultDTO> processClaimedBatch(Set<String> idempotencyKeys, Map<String, TransferRequestDTO> requests) {
+        Map<String, TransferRequestDTO> claims = new LinkedHashMap<>();
+        idempotencyKeys.forEach(idempotencyKey -> claims.put(idempotencyKey, requests.get(idempotencyKey)));
+        Map<String, TransferResultDTO> resultsByKey = new HashMap<>(transferServiceProcessor.claimTransfers(claims));
+        Map<String, CompletableFuture<TransferResultDTO>> ledgerCalls = new LinkedHashMap<>();
+        claims.forEach((idempotencyKey, request) -> {
+            if (!resultsByKey.containsKey(idempotencyKey)) {
+                ledgerCalls.put(idempotencyKey, callLedgerAsync(request, idempotencyKey));
+            }
+        });
+        Map<String, TransferResultDTO> ledgerResults = new LinkedHashMap<>();
+        List<String> released = new ArrayList<>();
+        ledgerCalls.forEach((idempotencyKey, future) -> {
+            try {
+                TransferResultDTO ledgerResult = future.join();
+                if (ledgerResult != null && TransferStatus.QUEUED.equals(ledgerResult.getStatus())) {
+                    // Moved to the replay buffer by the open-circuit fallback, nothing left to finalize
+                    resultsByKey.put(idempotencyKey, ledgerResult);
+                } else {
+                    ledgerResults.put(idempotencyKey, ledgerResult);
                 }
-            });
-            futures.add(future);
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Error processing transfer batch item {}: {}", idempotencyKey, cause.getMessage());
+                released.add(idempotencyKey);
+                resultsByKey.put(idempotencyKey, TransferResultDTO.failure(idempotencyKey, cause.getMessage()));
+            }
+        });
+        if (!ledgerCalls.isEmpty()) {
+            resultsByKey.putAll(transferServiceProcessor.finalizeTransfers(ledgerResults, released));
         }
-        return futures.stream()
-                .map(f -> {
+        return resultsByKey;
+    }
+
+    /**
+     * Process a newline-delimited JSON stream of transfers and write one result line per record as it completes.
+     * <p>
+     * At most {@code transfer.stream.max-in-flight} records are in flight; reading the input pauses until a
+     * slot frees up, so memory stays flat regardless of the upload size. Results are written in completion
+     * order and carry the record's idempotency key as transferId.
+     *
+     * @param input  NDJSON stream of {@link TransferStreamItemDTO} records.
+     * @param output Stream receiving one {@link TransferResultDTO} JSON line per record.
+     */
+    public void transferStream(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Semaphore inFlight = new Semaphore(streamMaxInFlight);
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        long records = 0;
+        String line;
+        try {
+            while (writeFailure.get() == null && (line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                records++;
+                inFlight.acquire();
+                TransferStreamItemDTO item;
+                try {
+                    item = objectMapper.readValue(line, TransferStreamItemDTO.class);
+                } catch (JsonProcessingException e) {
+                    log.error("Invalid transfer stream record {}: {}", records, e.getOriginalMessage());
+                    writeStreamResult(output, TransferResultDTO.failure(null, "Invalid record " + records), writeFailure);
+                    inFlight.release();
+                    continue;
+                }
+                transferExecutor.execute(() -> {
                     try {
-                        return f.get();
-                    } catch (InterruptedException | ExecutionException e) {
-                        log.error("Error waiting for transfer batch result: {}", e.getMessage());
-                        TransferResultDTO failed = new TransferResultDTO();
-                        failed.setStatus("failure");
-                        failed.setTransferId(null);
-                        return failed;
+                        writeStreamResult(output, transferStreamItem(item), writeFailure);
+                    } finally {
+                        inFlight.release();
                     }
-                })
-                .collect(Collectors.toList());
+                });
+            }
+            // Wait for the remaining in-flight records
+            inFlight.acquire(streamMaxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing transfer stream", e);
+        }
+        if (writeFailure.get() != null) {
+            throw writeFailure.get();
+        }
+        log.info("Processed transfer stream with {} record(s)", records);
+    }
+
+    private TransferResultDTO transferStreamItem(TransferStreamItemDTO item) {
+        String idempotencyKey = item.getIdempotencyKey();
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return TransferResultDTO.failure(null, "idempotencyKey must not be empty");
+        }
+        try {
+            return transfer(item.toRequest(), idempotencyKey);
+        } catch (Exception e) {
+            log.error("Error processing transfer stream item {}: {}", idempotencyKey, e.getMessage());
+            return TransferResultDTO.failure(idempotencyKey, e.getMessage());
+        }
+    }
+
+    private void writeStreamResult(OutputStream output, TransferResultDTO result, AtomicReference<IOException> writeFailure) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(result);
+            synchronized (output) {
+                output.write(json);
+                output.write(NEWLINE);
+                output.flush();
+            }
+        } catch (IOException e) {
+            // The client went away; stop reading further records
+            writeFailure.compareAndSet(null, e);
+        }
     }
 }
@@ -1,38 +1,70 @@
 package com.wallet.transfer.service;
 
+import com.wallet.transfer.client.LedgerClient;
+import com.wallet.transfer.config.ReadReplicaRoutingDataSource;
 import com.wallet.transfer.dto.TransferRequestDTO;
 import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
 import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.repository.TransferBatchRepository;
 import com.wallet.transfer.repository.TransferRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.slf4j.MDC;
 
 @Slf4j
 @Component
 public class TransferServiceProcessor {
+    private static final long CLAIM_POLL_MIN_MILLIS = 10;
+    private static final long CLAIM_POLL_MAX_MILLIS = 200;
+    /**
+     * Row version of a transfer once it left PENDING: claims are inserted with version 0 and finalized by
+     * a single {@code version + 1} update guarded on the PENDING status.
+     */
+    private static final long FINALIZED_VERSION = 1L;
+
     private final TransferRepository transferRepository;
-    private final RestTemplate restTemplate;
-    private final String apiHostContext;
-    private final String ledgerTransferApi;
-
-    public TransferServiceProcessor(RestTemplate restTemplate,TransferRepository transferRepository,
-                                    @Value("${ledger-api.host}") String apiHostContext,
-                                    @Value("${ledger-api.transfer.api}") String ledgerTransferApi) {
-        this.restTemplate = restTemplate;
+    private final TransferBatchRepository transferBatchRepository;
+    private final LedgerClient ledgerClient;
+    private final TransferResultCache transferResultCache;
+    private final TransferMetrics transferMetrics;
+    private final Duration claimWaitTimeout;
+    private final int statusChunkSize;
+    private final ObjectProvider<TransferReplayBuffer> transferReplayBuffer;
+
+    public TransferServiceProcessor(LedgerClient ledgerClient, TransferRepository transferRepository,
+                                    TransferBatchRepository transferBatchRepository,
+                                    TransferResultCache transferResultCache,
+                                    TransferMetrics transferMetrics,
+                                    @Value("${transfer.idempotency.wait-timeout:2s}") Duration claimWaitTimeout,
+                                    @Value("${transfer.status.bulk.chunk-size:500}") int statusChunkSize,
+                                    ObjectProvider<TransferReplayBuffer> transferReplayBuffer) {
+        this.ledgerClient = ledgerClient;
         this.transferRepository = transferRepository;
-        this.apiHostContext = apiHostContext;
-        this.ledgerTransferApi = ledgerTransferApi;
+        this.transferBatchRepository = transferBatchRepository;
+        this.transferResultCache = transferResultCache;
+        this.transferMetrics = transferMetrics;
+        this.claimWaitTimeout = claimWaitTimeout;
+        this.statusChunkSize = statusChunkSize;
+        this.transferReplayBuffer = transferReplayBuffer;
     }
     /**
      * Process a transfer between two accounts.
@@ -40,7 +72,6 @@ public class TransferServiceProcessor {
      * @param request The transfer request data.
      * @return The result of the transfer operation.
      */
-    @Transactional
     public TransferResultDTO processTransfer(TransferRequestDTO request) {
         log.info("Processing transfer from account {} to account {} for amount {}", request.getFromAccountId(), request.getToAccountId(), request.getAmount());
         // 1. Input validation
@@ -48,13 +79,7 @@ public class TransferServiceProcessor {
             throw new IllegalArgumentException("Invalid transfer request: missing required fields");
         }
         // 2. Call Ledger Service for atomic debit/credit
-        HttpHeaders requestHeaders = new HttpHeaders();
-        requestHeaders.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-        HttpEntity<TransferRequestDTO> entity = new HttpEntity<>(request, requestHeaders);
-        URI uri = UriComponentsBuilder.fromHttpUrl(apiHostContext + ledgerTransferApi)
-                .build()
-                .toUri();
-        TransferResultDTO ledgerResult = restTemplate.postForObject(uri, entity, TransferResultDTO.class);
+        TransferResultDTO ledgerResult = ledgerClient.transfer(request, null);
         // Persist the transfer result
         Transfer transfer = new Transfer();
         transfer.setFromAccountId(request.getFromAccountId());
@@ -71,12 +96,14 @@ public class TransferServiceProcessor {
 
     /**
      * Process a transfer between two accounts with idempotency.
+     * <p>
+     * No transaction is held across the ledger call: the idempotency key is claimed with a PENDING row
+     * in one short transaction, the ledger is called, and the status is finalized in a second one.
      *
      * @param request         The transfer request data.
      * @param idempotencyKey  The idempotency key to ensure the request is processed only once.
      * @return The result of the transfer operation.
      */
-    @Transactional
     @CircuitBreaker(name = "ledgerService", fallbackMethod = "ledgerServiceFallback")
     public TransferResultDTO processTransfer(TransferRequestDTO request, String idempotencyKey) {
         String correlationId = MDC.get("correlationId");
@@ -86,38 +113,318 @@ public class TransferServiceProcessor {
             throw new IllegalArgumentException("Invalid transfer request: missing required fields");
         }
 
-        // Check for existing transfer by transferId/idempotencyKey
-        Optional<Transfer> existing = transferRepository.findByTransferId(idempotencyKey);
+        Optional<TransferResultDTO> existing = claimTransfer(request, idempotencyKey);
         if (existing.isPresent()) {
-            Transfer existingTransfer = existing.get();
-            log.info("[correlationId={}] Duplicate transfer detected for idempotencyKey {}. Returning existing result.", correlationId, idempotencyKey);
+            return existing.get();
+        }
+        return callLedgerAndFinalize(request, idempotencyKey);
+    }
+
+    /**
+     * The second half of {@link #processTransfer}, for a key the caller already claimed with {@link #claimTransfer}:
+     * call the ledger and finalize the transfer. A failed ledger call releases the claim, or keeps it as UNKNOWN
+     * when the ledger may have applied it, exactly as {@link #processTransfer} does.
+     *
+     * @param request        The transfer request data.
+     * @param idempotencyKey The claimed idempotency key.
+     * @return The result of the transfer operation.
+     */
+    @CircuitBreaker(name = "ledgerService", fallbackMethod = "claimedProcessFallback")
+    public TransferResultDTO processClaimedTransfer(TransferRequestDTO request, String idempotencyKey) {
+        return callLedgerAndFinalize(request, idempotencyKey);
+    }
+
+    private TransferResultDTO callLedgerAndFinalize(TransferRequestDTO request, String idempotencyKey) {
+        // Call Ledger Service for atomic debit/credit with no transaction open (circuit breaker applied)
+        TransferResultDTO ledgerResult;
+        try {
+            ledgerResult = callLedgerTimed(request, idempotencyKey);
+        } catch (RuntimeException e) {
+            if (LedgerClient.isOutcomeUnknown(e)) {
+                // The ledger may have applied it: keep the key and leave the outcome to the reconciler
+                transferRepository.updateStatus(idempotencyKey, TransferStatus.PENDING, TransferStatus.UNKNOWN);
+            } else {
+                // Release the claim so a retry with the same key can proceed, as the old rollback did
+                releaseClaim(idempotencyKey);
+            }
+            throw e;
+        }
+        return finalizeTransfer(idempotencyKey, ledgerResult);
+    }
+
+    /**
+     * Claim an idempotency key by inserting a PENDING transfer row, atomically and in a single round trip.
+     * <p>
+     * If another request holds the key, its result is returned instead. While that result is still PENDING
+     * this waits up to {@code transfer.idempotency.wait-timeout} for it to be finalized and then returns the
+     * PENDING result. A claim released by a failed ledger call is taken over by the next waiter. An UNKNOWN
+     * result is returned right away; it is only resolved by the reconciler.
+     *
+     * @param request        The transfer request data.
+     * @param idempotencyKey The idempotency key to claim.
+     * @return empty if the key was claimed by this call, otherwise the current result for the key.
+     */
+    public Optional<TransferResultDTO> claimTransfer(TransferRequestDTO request, String idempotencyKey) {
+        long start = System.nanoTime();
+        try {
+            return claimOrWait(request, idempotencyKey);
+        } finally {
+            transferMetrics.recordIdempotency(start);
+        }
+    }
+
+    private Optional<TransferResultDTO> claimOrWait(TransferRequestDTO request, String idempotencyKey) {
+        String correlationId = MDC.get("correlationId");
+        // Finalized results are cached, which answers most client retries without a DB round trip
+        Optional<TransferResultDTO> cached = transferResultCache.get(idempotencyKey);
+        if (cached.isPresent()) {
+            log.info("[correlationId={}] Duplicate transfer detected for idempotencyKey {}. Returning cached result.", correlationId, idempotencyKey);
+            return cached;
+        }
+        long deadline = System.nanoTime() + claimWaitTimeout.toNanos();
+        long backoffMillis = CLAIM_POLL_MIN_MILLIS;
+        while (true) {
+            int inserted = transferRepository.insertIfAbsent(idempotencyKey, request.getFromAccountId(),
+                    request.getToAccountId(), request.getAmount(), TransferStatus.PENDING);
+            if (inserted == 1) {
+                return Optional.empty();
+            }
+            Optional<Transfer> existing = transferRepository.findByTransferId(idempotencyKey);
+            if (existing.isPresent() && (!TransferStatus.PENDING.equals(existing.get().getStatus()) || System.nanoTime() >= deadline)) {
+                log.info("[correlationId={}] Duplicate transfer detected for idempotencyKey {}. Returning existing result.", correlationId, idempotencyKey);
+                return Optional.of(cacheResult(existing.get()));
+            }
+            if (existing.isEmpty() && System.nanoTime() >= deadline) {
+                // The key is taken but has no row, e.g. its partition was dropped while the key entry lives on
+                log.warn("[correlationId={}] idempotencyKey {} is reserved but has no transfer", correlationId, idempotencyKey);
+                throw new IllegalStateException("Idempotency key " + idempotencyKey + " is reserved by a transfer that no longer exists");
+            }
+            // Either another request holds the claim and we wait for it to be finalized, or the claim was
+            // released in the meantime and the next insert may win it
+            sleepQuietly(backoffMillis);
+            backoffMillis = Math.min(backoffMillis * 2, CLAIM_POLL_MAX_MILLIS);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a concurrent transfer", e);
+        }
+    }
+
+    /**
+     * Call the ledger for a transfer whose key was already claimed with {@link #claimTransfer} and finalize it.
+     * If the ledger call fails the transfer is finalized as failed.
+     *
+     * @param request        The transfer request data.
+     * @param idempotencyKey The claimed idempotency key.
+     * @return The result of the transfer operation.
+     */
+    @CircuitBreaker(name = "ledgerService", fallbackMethod = "claimedTransferFallback")
+    public TransferResultDTO executeClaimedTransfer(TransferRequestDTO request, String idempotencyKey) {
+        String correlationId = MDC.get("correlationId");
+        log.info("[correlationId={}] Executing claimed transfer with idempotencyKey {}", correlationId, idempotencyKey);
+        TransferResultDTO ledgerResult = callLedgerTimed(request, idempotencyKey);
+        return finalizeTransfer(idempotencyKey, ledgerResult);
+    }
+
+    /**
+     * Claim a batch of idempotency keys with one batched insert in a single transaction.
+     * <p>
+     * Unlike {@link #claimTransfer} this does not wait for keys held by other requests; their current
+     * result, which may still be PENDING, is returned as is.
+     *
+     * @param requests transfer requests keyed by idempotency key.
+     * @return the current result for every key that was not claimed by this call.
+     */
+    public Map<String, TransferResultDTO> claimTransfers(Map<String, TransferRequestDTO> requests) {
+        long start = System.nanoTime();
+        try {
+            return claimAll(requests);
+        } finally {
+            transferMetrics.recordIdempotency(start);
+        }
+    }
+
+    private Map<String, TransferResultDTO> claimAll(Map<String, TransferRequestDTO> requests) {
+        Map<String, TransferResultDTO> existing = new HashMap<>();
+        Map<String, TransferRequestDTO> toClaim = new LinkedHashMap<>();
+        requests.forEach((key, request) -> transferResultCache.get(key)
+                .ifPresentOrElse(cached -> existing.put(key, cached), () -> toClaim.put(key, request)));
+        if (toClaim.isEmpty()) {
+            return existing;
+        }
+        int[] inserted = transferBatchRepository.insertIfAbsent(toClaim);
+        List<String> lost = new ArrayList<>();
+        Iterator<String> keys = toClaim.keySet().iterator();
+        for (int count : inserted) {
+            String key = keys.next();
+            if (count != 1) {
+                lost.add(key);
+            }
+        }
+        if (!lost.isEmpty()) {
+            log.info("Duplicate transfers detected for idempotencyKeys {}. Returning existing results.", lost);
+            for (Transfer transfer : transferRepository.findByTransferIdIn(lost)) {
+                existing.put(transfer.getTransferId(), cacheResult(transfer));
+            }
+            // A claim released between the insert and the read leaves nothing to report; the item can be retried
+            lost.stream().filter(key -> !existing.containsKey(key))
+                    .forEach(key -> existing.put(key, TransferResultDTO.failure(key, "Concurrent transfer with the same idempotency key was released, retry")));
+        }
+        return existing;
+    }
+
+    /**
+     * Call the ledger for a transfer claimed with {@link #claimTransfers}. As on the single-transfer path, an
+     * ambiguous failure yields an UNKNOWN result and a call refused by the open circuit moves the transfer to the
+     * replay buffer (QUEUED result) when it is enabled. Other failures propagate to the caller, which releases the
+     * claim with {@link #finalizeTransfers}.
+     */
+    @CircuitBreaker(name = "ledgerService", fallbackMethod = "claimedLedgerCallFallback")
+    public TransferResultDTO callLedger(TransferRequestDTO request, String idempotencyKey) {
+        return callLedgerTimed(request, idempotencyKey);
+    }
+
+    /**
+     * Call the ledger for a transfer stored with an outbox entry. All failures propagate, so the outbox can retry.
+     */
+    @CircuitBreaker(name = "ledgerService")
+    public TransferResultDTO dispatchLedgerCall(TransferRequestDTO request, String idempotencyKey) {
+        return callLedgerTimed(request, idempotencyKey);
+    }
+
+    private TransferResultDTO callLedgerTimed(TransferRequestDTO request, String idempotencyKey) {
+        long start = System.nanoTime();
+        TransferResultDTO ledgerResult = null;
+        boolean failed = true;
+        try {
+            ledgerResult = ledgerClient.transfer(request, idempotencyKey);
+            failed = false;
+            return ledgerResult;
+        } finally {
+            transferMetrics.recordLedgerCall(start, ledgerResult, failed);
+        }
+    }
+
+    /**
+     * Repeat the ledger call of an unresolved transfer with its original idempotency key and finalize it,
+     * guarded on the status it was read in. Failures propagate to the caller and leave the transfer as is.
+     *
+     * @param request        The transfer request data.
+     * @param idempotencyKey The idempotency key of the transfer.
+     * @param expectedStatus  PENDING or UNKNOWN, as read by the caller.
+     * @param expectedVersion row version read with {@code expectedStatus}.
+     * @return The final result and whether this call finalized the transfer; if it did not, the result is the
+     *         status stored by whoever changed the transfer first.
+     */
+    @CircuitBreaker(name = "ledgerService")
+    public Resolution resolveTransfer(TransferRequestDTO request, String idempotencyKey, String expectedStatus,
+                                      long expectedVersion) {
+        TransferResultDTO ledgerResult = callLedgerTimed(request, idempotencyKey);
+        String status = ledgerResult != null ? ledgerResult.getStatus() : TransferStatus.FAILURE;
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(idempotencyKey);
+        if (transferRepository.updateStatus(idempotencyKey, expectedStatus, status) == 1) {
+            transferResultCache.put(idempotencyKey, status, expectedVersion + 1);
+            result.setStatus(status);
+            return new Resolution(result, true);
+        }
+        // Lost the race; a row that is gone by now was released or expired, and only the ledger's answer is left
+        result.setStatus(transferRepository.findStatusByTransferId(idempotencyKey).map(TransferRepository.StatusView::getStatus).orElse(status));
+        return new Resolution(result, false);
+    }
+
+    /**
+     * Outcome of {@link #resolveTransfer}: the transfer's result, and whether this call was the one to finalize it.
+     */
+    public record Resolution(TransferResultDTO result, boolean finalized) {
+    }
+
+    /**
+     * Finalize the ledger results of a claimed batch and release the claims whose ledger call failed,
+     * with batched statements in a single transaction. Inside a caller's transaction, the finalized results are
+     * cached only once it commits, so the cache never serves a status that was rolled back.
+     *
+     * @param ledgerResults ledger result by idempotency key; a null result is finalized as failed.
+     * @param released      idempotency keys whose claim is released so a retry can proceed.
+     * @return the final result by idempotency key for {@code ledgerResults}.
+     */
+    public Map<String, TransferResultDTO> finalizeTransfers(Map<String, TransferResultDTO> ledgerResults, Collection<String> released) {
+        Map<String, String> statuses = new LinkedHashMap<>();
+        ledgerResults.forEach((key, ledgerResult) ->
+                statuses.put(key, ledgerResult != null ? ledgerResult.getStatus() : TransferStatus.FAILURE));
+        long start = System.nanoTime();
+        int[] updated = transferBatchRepository.finalizeAndRelease(statuses, released);
+        transferMetrics.recordPersist(start);
+        Map<String, TransferResultDTO> results = new LinkedHashMap<>();
+        Map<String, String> finalized = new LinkedHashMap<>();
+        int i = 0;
+        for (Map.Entry<String, String> entry : statuses.entrySet()) {
+            if (updated[i++] == 1) {
+                finalized.put(entry.getKey(), entry.getValue());
+            }
             TransferResultDTO result = new TransferResultDTO();
-            result.setTransferId(existingTransfer.getTransferId());
-            result.setStatus(existingTransfer.getStatus());
-            return result;
-        }
-        // Call Ledger Service for atomic debit/credit (circuit breaker applied)
-        HttpHeaders requestHeaders = new HttpHeaders();
-        requestHeaders.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-        requestHeaders.set("Idempotency-Key", idempotencyKey); // set your key here
-
-        HttpEntity<TransferRequestDTO> entity = new HttpEntity<>(request, requestHeaders);
-        URI uri = UriComponentsBuilder.fromHttpUrl(apiHostContext + ledgerTransferApi)
-                .build()
-                .toUri();
-        TransferResultDTO ledgerResult = restTemplate.postForObject(uri, entity, TransferResultDTO.class);
-        // Persist the transfer result
-        Transfer transfer = new Transfer();
-        transfer.setTransferId(idempotencyKey);
-        transfer.setFromAccountId(request.getFromAccountId());
-        transfer.setToAccountId(request.getToAccountId());
-        transfer.setAmount(request.getAmount());
-        transfer.setStatus(ledgerResult != null ? ledgerResult.getStatus() : "failure");
-        Transfer saved = transferRepository.save(transfer);
+            result.setTransferId(entry.getKey());
+            result.setStatus(entry.getValue());
+            results.put(entry.getKey(), result);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheFinalized(finalized);
+                }
+            });
+        } else {
+            cacheFinalized(finalized);
+        }
+        return results;
+    }
+
+    private void cacheFinalized(Map<String, String> statuses) {
+        statuses.forEach((key, status) -> transferResultCache.put(key, status, FINALIZED_VERSION));
+    }
+
+    /**
+     * Release a PENDING claim so that a retry with the same key can proceed.
+     */
+    public void releaseClaim(String idempotencyKey) {
+        transferRepository.deleteByTransferIdAndStatus(idempotencyKey, TransferStatus.PENDING);
+    }
+
+    private TransferResultDTO finalizeTransfer(String idempotencyKey, TransferResultDTO ledgerResult) {
+        // Finalize the transfer status (own short transaction)
+        String status = ledgerResult != null ? ledgerResult.getStatus() : TransferStatus.FAILURE;
+        long start = System.nanoTime();
+        int updated = transferRepository.updateStatus(idempotencyKey, TransferStatus.PENDING, status);
+        transferMetrics.recordPersist(start);
+        if (updated == 1) {
+            transferResultCache.put(idempotencyKey, status, FINALIZED_VERSION);
+        }
         // Build result DTO
         TransferResultDTO result = new TransferResultDTO();
-        result.setTransferId(saved.getTransferId());
-        result.setStatus(saved.getStatus());
+        result.setTransferId(idempotencyKey);
+        result.setStatus(status);
+        return result;
+    }
+
+    private TransferResultDTO cacheResult(Transfer transfer) {
+        transferResultCache.put(transfer.getTransferId(), transfer.getStatus(), versionOf(transfer.getVersion()));
+        return toResult(transfer);
+    }
+
+    private static long versionOf(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    private static TransferResultDTO toResult(Transfer transfer) {
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(transfer.getTransferId());
+        result.setStatus(transfer.getStatus());
         return result;
     }
 
@@ -125,14 +432,172 @@ public class TransferServiceProcessor {
     public TransferResultDTO ledgerServiceFallback(TransferRequestDTO request, String idempotencyKey, Throwable t) {
         String correlationId = MDC.get("correlationId");
         log.error("[correlationId={}] Ledger service unavailable or failed for transferId {}: {}", correlationId, idempotencyKey, t.getMessage());
+        transferMetrics.recordFallback(false);
         TransferResultDTO result = new TransferResultDTO();
         result.setTransferId(idempotencyKey);
-        result.setStatus("failure");
+        result.setStatus(LedgerClient.isOutcomeUnknown(t) ? TransferStatus.UNKNOWN : "failure");
         return result;
     }
 
+    // Shed load is not a ledger failure: the claim is already released and the caller answers 503 with Retry-After
+    public TransferResultDTO ledgerServiceFallback(TransferRequestDTO request, String idempotencyKey, ServiceOverloadedException e) {
+        throw e;
+    }
+
+    // Open circuit: nothing was claimed yet, park the transfer in the replay buffer if enabled and not full
+    public TransferResultDTO ledgerServiceFallback(TransferRequestDTO request, String idempotencyKey, CallNotPermittedException e) {
+        Optional<TransferResultDTO> queued = Optional.ofNullable(transferReplayBuffer.getIfAvailable())
+                .flatMap(buffer -> buffer.offer(request, idempotencyKey));
+        return queued.orElseGet(() -> ledgerServiceFallback(request, idempotencyKey, (Throwable) e));
+    }
+
+    // The claim was already released or marked UNKNOWN when the ledger call failed
+    public TransferResultDTO claimedProcessFallback(TransferRequestDTO request, String idempotencyKey, Throwable t) {
+        return ledgerServiceFallback(request, idempotencyKey, t);
+    }
+
+    public TransferResultDTO claimedProcessFallback(TransferRequestDTO request, String idempotencyKey, ServiceOverloadedException e) {
+        throw e;
+    }
+
+    // Open circuit: unlike processTransfer the key is already claimed, so it is buffered or released
+    public TransferResultDTO claimedProcessFallback(TransferRequestDTO request, String idempotencyKey, CallNotPermittedException e) {
+        return claimedTransferFallback(request, idempotencyKey, e);
+    }
+
+    // Fallback method for circuit breaker on already claimed transfers
+    public TransferResultDTO claimedTransferFallback(TransferRequestDTO request, String idempotencyKey, Throwable t) {
+        String correlationId = MDC.get("correlationId");
+        log.error("[correlationId={}] Ledger service unavailable or failed for claimed transferId {}: {}", correlationId, idempotencyKey, t.getMessage());
+        transferMetrics.recordFallback(true);
+        String status = LedgerClient.isOutcomeUnknown(t) ? TransferStatus.UNKNOWN : TransferStatus.FAILURE;
+        if (transferRepository.updateStatus(idempotencyKey, TransferStatus.PENDING, status) == 1) {
+            transferResultCache.put(idempotencyKey, status, FINALIZED_VERSION);
+        }
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(idempotencyKey);
+        result.setStatus(status);
+        return result;
+    }
+
+    // Open circuit on an already claimed transfer: move it to the replay buffer if enabled, otherwise release the claim
+    public TransferResultDTO claimedTransferFallback(TransferRequestDTO request, String idempotencyKey, CallNotPermittedException e) {
+        return bufferClaimed(idempotencyKey).orElseGet(() -> releaseClaimedTransfer(idempotencyKey, e));
+    }
+
+    // Shed by the ledger concurrency limit: like an open circuit, the transfer never reached the ledger
+    public TransferResultDTO claimedTransferFallback(TransferRequestDTO request, String idempotencyKey, ServiceOverloadedException e) {
+        return releaseClaimedTransfer(idempotencyKey, e);
+    }
+
+    // Fallback for batch ledger calls: the caller finalizes an UNKNOWN result and releases the claim on a rethrow
+    public TransferResultDTO claimedLedgerCallFallback(TransferRequestDTO request, String idempotencyKey, RuntimeException e) {
+        if (!LedgerClient.isOutcomeUnknown(e)) {
+            throw e;
+        }
+        String correlationId = MDC.get("correlationId");
+        log.error("[correlationId={}] Ledger outcome unknown for claimed transferId {}: {}", correlationId, idempotencyKey, e.getMessage());
+        transferMetrics.recordFallback(true);
+        return TransferResultDTO.unknown(idempotencyKey, e.getMessage());
+    }
+
+    public TransferResultDTO claimedLedgerCallFallback(TransferRequestDTO request, String idempotencyKey, CallNotPermittedException e) {
+        Optional<TransferResultDTO> queued = bufferClaimed(idempotencyKey);
+        if (queued.isEmpty()) {
+            throw e;
+        }
+        transferMetrics.recordFallback(true);
+        return queued.get();
+    }
+
+    public TransferResultDTO claimedLedgerCallFallback(TransferRequestDTO request, String idempotencyKey, ServiceOverloadedException e) {
+        throw e;
+    }
+
+    private TransferResultDTO releaseClaimedTransfer(String idempotencyKey, RuntimeException e) {
+        String correlationId = MDC.get("correlationId");
+        log.warn("[correlationId={}] Claimed transferId {} was not sent to the ledger, releasing the key for a retry: {}", correlationId, idempotencyKey, e.getMessage());
+        transferMetrics.recordFallback(true);
+        releaseClaim(idempotencyKey);
+        return TransferResultDTO.failure(idempotencyKey, "Ledger unavailable, retry with the same Idempotency-Key");
+    }
+
+    /**
+     * Move a claimed PENDING transfer whose ledger call was refused by the open circuit to the replay buffer.
+     *
+     * @return the QUEUED result, or empty if the buffer is disabled or full.
+     */
+    public Optional<TransferResultDTO> bufferClaimed(String idempotencyKey) {
+        return Optional.ofNullable(transferReplayBuffer.getIfAvailable()).flatMap(buffer -> buffer.requeue(idempotencyKey));
+    }
+
+    /**
+     * Fetch the status and version of a transfer, served from the result cache when it is final.
+     * Otherwise only {@code status} and {@code version} are read, from the replica first and then the primary.
+     *
+     * @param transferId The transferId (idempotency key) of the transfer.
+     * @return The transfer status and its row version.
+     */
+    public TransferStatusDTO getTransferStatus(String transferId) {
+        Optional<TransferStatusDTO> cached = transferResultCache.getStatus(transferId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Optional<TransferRepository.StatusView> view = ReadReplicaRoutingDataSource.onReplica(() -> transferRepository.findStatusByTransferId(transferId));
+        if (view.isEmpty()) {
+            view = transferRepository.findStatusByTransferId(transferId);
+        }
+        if (view.isEmpty()) {
+            log.error("Transfer with ID {} not found", transferId);
+            throw new IllegalArgumentException("Transfer not found with ID: " + transferId);
+        }
+        TransferStatusDTO status = new TransferStatusDTO(transferId, view.get().getStatus(), versionOf(view.get().getVersion()));
+        transferResultCache.put(transferId, status.getStatus(), status.getVersion());
+        return status;
+    }
+
+    /**
+     * Fetch the statuses of many transfers: final statuses from the result cache, the rest with one
+     * {@code IN} query per chunk of {@code transfer.status.bulk.chunk-size} ids, against the replica first
+     * and the primary for ids the replica does not know yet.
+     *
+     * @param transferIds distinct transferIds.
+     * @return status and version by transferId; unknown ids are absent.
+     */
+    public Map<String, TransferStatusDTO> getTransferStatuses(Collection<String> transferIds) {
+        Map<String, TransferStatusDTO> statuses = new HashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String transferId : transferIds) {
+            transferResultCache.getStatus(transferId)
+                    .ifPresentOrElse(cached -> statuses.put(transferId, cached), () -> uncached.add(transferId));
+        }
+        for (int from = 0; from < uncached.size(); from += statusChunkSize) {
+            List<String> chunk = uncached.subList(from, Math.min(from + statusChunkSize, uncached.size()));
+            addStatuses(statuses, ReadReplicaRoutingDataSource.onReplica(() -> transferRepository.findStatusesByTransferIdIn(chunk)));
+            List<String> missing = chunk.stream().filter(transferId -> !statuses.containsKey(transferId)).toList();
+            if (!missing.isEmpty()) {
+                addStatuses(statuses, transferRepository.findStatusesByTransferIdIn(missing));
+            }
+        }
+        return statuses;
+    }
+
+    private void addStatuses(Map<String, TransferStatusDTO> statuses, List<TransferRepository.TransferIdStatusView> views) {
+        for (TransferRepository.TransferIdStatusView view : views) {
+            TransferStatusDTO status = new TransferStatusDTO(view.getTransferId(), view.getStatus(), versionOf(view.getVersion()));
+            transferResultCache.put(status.getTransferId(), status.getStatus(), status.getVersion());
+            statuses.put(status.getTransferId(), status);
+        }
+    }
+
+    /**
+     * Fetch a transfer from the read replica, falling back to the primary when the replica has not caught up yet.
+     */
     public Transfer getTransferById(String transferId) {
-        Optional<Transfer> optionalTransfer = transferRepository.findByTransferId(transferId);
+        Optional<Transfer> optionalTransfer = ReadReplicaRoutingDataSource.onReplica(() -> transferRepository.findByTransferId(transferId));
+        if (optionalTransfer.isEmpty()) {
+            optionalTransfer = transferRepository.findByTransferId(transferId);
+        }
 
         if (optionalTransfer.isPresent()) {
             return optionalTransfer.get();
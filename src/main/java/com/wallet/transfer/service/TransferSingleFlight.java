@@ -0,0 +1,198 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.dto.TransferResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process single-flight for transfers: while an idempotency key is being processed on this node,
+ * later callers with the same key attach to the pending result instead of doing their own DB or ledger work.
+ * <p>
+ * The in-flight map is bounded; when it is full, callers process normally and rely on the DB claim.
+ * Followers wait at most {@code transfer.single-flight.wait-timeout} and then also fall back to processing
+ * themselves, which is safe because the DB claim is idempotent. If the leader's call fails, its followers
+ * fail with the same exception rather than all retrying the call at once.
+ */
+@Slf4j
+@Component
+public class TransferSingleFlight {
+    private final ConcurrentHashMap<String, CompletableFuture<TransferResultDTO>> inFlight = new ConcurrentHashMap<>();
+    private final int maxInFlight;
+    private final long waitTimeoutNanos;
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public TransferSingleFlight(@Value("${transfer.single-flight.max-in-flight:10000}") int maxInFlight,
+                                @Value("${transfer.single-flight.wait-timeout:5s}") Duration waitTimeout) {
+        this.maxInFlight = maxInFlight;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+    }
+
+    /**
+     * Run {@code call} for the key, or wait for the result of a call already in flight for the same key.
+     *
+     * @throws RuntimeException thrown by {@code call}, or by the in-flight call this caller waited for.
+     */
+    public TransferResultDTO execute(String idempotencyKey, Supplier<TransferResultDTO> call) {
+        if (idempotencyKey == null || inFlight.mappingCount() >= maxInFlight) {
+            bypassed.increment();
+            return call.get();
+        }
+        CompletableFuture<TransferResultDTO> leader = new CompletableFuture<>();
+        CompletableFuture<TransferResultDTO> existing = inFlight.putIfAbsent(idempotencyKey, leader);
+        if (existing != null) {
+            return follow(idempotencyKey, existing, call);
+        }
+        leaders.increment();
+        try {
+            TransferResultDTO result = call.get();
+            leader.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, leader);
+        }
+    }
+
+    /**
+     * Batch counterpart of {@link #execute}: {@code call} runs once for the keys not already in flight on this node
+     * and returns their results by key, the other keys wait for the call in flight for them. Keys whose wait times
+     * out are passed to {@code call} afterwards; a key whose in-flight call failed gets a failure result.
+     *
+     * @return the result by key, for every key in {@code idempotencyKeys}.
+     */
+    public Map<String, TransferResultDTO> executeAll(Collection<String> idempotencyKeys,
+                                                     Function<Set<String>, Map<String, TransferResultDTO>> call) {
+        Map<String, CompletableFuture<TransferResultDTO>> led = new LinkedHashMap<>();
+        Map<String, CompletableFuture<TransferResultDTO>> followed = new LinkedHashMap<>();
+        Set<String> direct = new LinkedHashSet<>();
+        for (String idempotencyKey : idempotencyKeys) {
+            if (inFlight.mappingCount() >= maxInFlight) {
+                bypassed.increment();
+                direct.add(idempotencyKey);
+                continue;
+            }
+            CompletableFuture<TransferResultDTO> leader = new CompletableFuture<>();
+            CompletableFuture<TransferResultDTO> existing = inFlight.putIfAbsent(idempotencyKey, leader);
+            if (existing != null) {
+                followers.increment();
+                followed.put(idempotencyKey, existing);
+            } else {
+                leaders.increment();
+                led.put(idempotencyKey, leader);
+            }
+        }
+
+        Map<String, TransferResultDTO> results = new HashMap<>();
+        if (!led.isEmpty() || !direct.isEmpty()) {
+            Set<String> keys = new LinkedHashSet<>(led.keySet());
+            keys.addAll(direct);
+            try {
+                results.putAll(call.apply(keys));
+                led.forEach((idempotencyKey, leader) -> leader.complete(results.get(idempotencyKey)));
+            } catch (RuntimeException e) {
+                led.values().forEach(leader -> leader.completeExceptionally(e));
+                throw e;
+            } finally {
+                led.forEach(inFlight::remove);
+            }
+        }
+
+        // Followers wait after leading their own keys, so batches following each other cannot deadlock
+        long deadline = System.nanoTime() + waitTimeoutNanos;
+        Set<String> timedOut = new LinkedHashSet<>();
+        followed.forEach((idempotencyKey, leader) -> {
+            try {
+                results.put(idempotencyKey, copyOf(leader.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)));
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                timedOut.add(idempotencyKey);
+            } catch (ExecutionException e) {
+                log.warn("In-flight transfer {} failed: {}", idempotencyKey, e.getCause().getMessage());
+                results.put(idempotencyKey, TransferResultDTO.failure(idempotencyKey, e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for in-flight transfer " + idempotencyKey, e);
+            }
+        });
+        if (!timedOut.isEmpty()) {
+            log.warn("Timed out waiting for {} in-flight transfer(s), processing them directly", timedOut.size());
+            results.putAll(call.apply(timedOut));
+        }
+        return results;
+    }
+
+    private TransferResultDTO follow(String idempotencyKey, CompletableFuture<TransferResultDTO> leader,
+                                     Supplier<TransferResultDTO> call) {
+        followers.increment();
+        try {
+            return copyOf(leader.get(waitTimeoutNanos, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            log.warn("Timed out waiting for in-flight transfer {}, processing it directly", idempotencyKey);
+        } catch (ExecutionException e) {
+            log.warn("In-flight transfer {} failed: {}", idempotencyKey, e.getCause().getMessage());
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new IllegalStateException("In-flight transfer " + idempotencyKey + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight transfer " + idempotencyKey, e);
+        }
+        return call.get();
+    }
+
+    private static TransferResultDTO copyOf(TransferResultDTO result) {
+        if (result == null) {
+            return null;
+        }
+        TransferResultDTO copy = new TransferResultDTO();
+        copy.setTransferId(result.getTransferId());
+        copy.setStatus(result.getStatus());
+        copy.setError(result.getError());
+        return copy;
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    public long getLeaders() {
+        return leaders.sum();
+    }
+
+    public long getFollowers() {
+        return followers.sum();
+    }
+
+    public long getBypassed() {
+        return bypassed.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+}
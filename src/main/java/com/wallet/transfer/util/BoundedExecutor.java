@@ -0,0 +1,60 @@
+package com.wallet.transfer.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executor that caps how many submitted tasks run at the same time.
+ * Tasks beyond the cap wait for a permit on their own thread, which is cheap with virtual threads.
+ * Every accepted task is run, even if waiting for its permit is interrupted.
+ */
+public class BoundedExecutor implements Executor, AutoCloseable {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public BoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            boolean acquired = false;
+            try {
+                permits.acquire();
+                acquired = true;
+            } catch (InterruptedException e) {
+                // Still run the task so that futures and latches completed by it do not hang; it runs over the
+                // bound with the interrupt flag set, so blocking calls in it fail fast
+                Thread.currentThread().interrupt();
+            }
+            try {
+                task.run();
+            } finally {
+                if (acquired) {
+                    permits.release();
+                }
+            }
+        });
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getInFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,160 @@
+package com.wallet.transfer.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Executor that hashes tasks by key onto a fixed number of serial lanes.
+ * Tasks with the same key run one at a time in submission order; tasks on different lanes run in parallel.
+ * Each lane holds at most {@code maxDepth} queued tasks and rejects further submissions.
+ */
+public class StripedSerialExecutor implements AutoCloseable {
+    private final ExecutorService delegate;
+    private final Lane[] lanes;
+    private final int maxDepth;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param delegate runs at most one task per lane at a time, so it needs no more threads than there are lanes.
+     */
+    public StripedSerialExecutor(ExecutorService delegate, int laneCount, int maxDepth) {
+        if (laneCount <= 0 || maxDepth <= 0) {
+            throw new IllegalArgumentException("laneCount and maxDepth must be positive");
+        }
+        this.delegate = delegate;
+        this.maxDepth = maxDepth;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Queue {@code task} on the lane of {@code key}.
+     *
+     * @throws RejectedExecutionException if the lane already holds {@code maxDepth} queued tasks.
+     */
+    public <T> CompletableFuture<T> submit(long key, Supplier<T> task) {
+        LaneTask<T> laneTask = new LaneTask<>(task);
+        lanes[Math.floorMod(Long.hashCode(key), lanes.length)].enqueue(laneTask);
+        return laneTask.result;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return tasks waiting on all lanes, excluding the ones running.
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (Lane lane : lanes) {
+            queued += lane.depth();
+        }
+        return queued;
+    }
+
+    /**
+     * @return tasks waiting on the most loaded lane.
+     */
+    public int getMaxQueued() {
+        int max = 0;
+        for (Lane lane : lanes) {
+            max = Math.max(max, lane.depth());
+        }
+        return max;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void close() {
+        delegate.shutdown();
+        try {
+            delegate.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final ArrayDeque<LaneTask<?>> queue = new ArrayDeque<>();
+        private boolean draining;
+
+        void enqueue(LaneTask<?> task) {
+            synchronized (this) {
+                if (queue.size() >= maxDepth) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Lane is full (" + maxDepth + " queued tasks)");
+                }
+                queue.add(task);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                delegate.execute(this);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: fail everything queued here, nothing is left to drain it
+                List<LaneTask<?>> orphaned;
+                synchronized (this) {
+                    orphaned = new ArrayList<>(queue);
+                    queue.clear();
+                    draining = false;
+                }
+                orphaned.forEach(orphan -> orphan.result.completeExceptionally(e));
+            }
+        }
+
+        synchronized int depth() {
+            return queue.size();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                LaneTask<?> task;
+                synchronized (this) {
+                    task = queue.poll();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                task.run();
+            }
+        }
+    }
+
+    private static final class LaneTask<T> {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        LaneTask(Supplier<T> task) {
+            this.task = task;
+        }
+
+        void run() {
+            try {
+                result.complete(task.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.wallet.transfer.benchmark;
+
+import com.wallet.transfer.client.LedgerClient;
+import com.wallet.transfer.config.RestTemplateConfig;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.support.StubLedgerServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the bare {@code new RestTemplate()} ledger call used before with the pooled {@link LedgerClient}
+ * against a local stub ledger. Run with {@code mvn -Pbenchmark test}.
+ */
+@Tag("benchmark")
+class LedgerClientBenchmark {
+    private static final int CONCURRENCY = 32;
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final int MEASURED_REQUESTS = 20_000;
+
+    @Test
+    void pooledClientVersusBareRestTemplate() throws Exception {
+        try (StubLedgerServer ledger = StubLedgerServer.start()) {
+            String baseUrl = ledger.baseUrl();
+
+            RestTemplate bare = new RestTemplate();
+            BiFunction<TransferRequestDTO, String, TransferResultDTO> bareCall = (request, key) -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                headers.set(LedgerClient.IDEMPOTENCY_KEY_HEADER, key);
+                URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl + StubLedgerServer.TRANSFER_API).build().toUri();
+                return bare.postForObject(uri, new HttpEntity<>(request, headers), TransferResultDTO.class);
+            };
+
+            ClientHttpRequestFactory pooledFactory = new RestTemplateConfig().ledgerRequestFactory(false, CONCURRENCY,
+                    Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofSeconds(1), Duration.ofSeconds(30));
+            LedgerClient pooled = new LedgerClient(new RestTemplate(pooledFactory), baseUrl, StubLedgerServer.TRANSFER_API);
+
+            try {
+                Report bareReport = run("bare RestTemplate", bareCall);
+                Report pooledReport = run("pooled LedgerClient", pooled::transfer);
+                System.out.println(bareReport);
+                System.out.println(pooledReport);
+                System.out.printf("throughput gain: %.2fx, p99 ratio: %.2fx%n",
+                        pooledReport.opsPerSecond / bareReport.opsPerSecond,
+                        (double) bareReport.p99Micros / Math.max(1, pooledReport.p99Micros));
+            } finally {
+                ((DisposableBean) pooledFactory).destroy();
+            }
+        }
+    }
+
+    private Report run(String name, BiFunction<TransferRequestDTO, String, TransferResultDTO> call) throws Exception {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        drive(name + "-warmup", WARMUP_REQUESTS, request, call);
+        long[] latencies = new long[MEASURED_REQUESTS];
+        long elapsed = drive(name, latencies, request, call);
+        Arrays.sort(latencies);
+        double opsPerSecond = MEASURED_REQUESTS / (elapsed / 1e9);
+        return new Report(name, opsPerSecond,
+                TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[(int) (latencies.length * 0.99)]));
+    }
+
+    private void drive(String prefix, int requests, TransferRequestDTO request,
+                       BiFunction<TransferRequestDTO, String, TransferResultDTO> call) throws Exception {
+        drive(prefix, new long[requests], request, call);
+    }
+
+    private long drive(String prefix, long[] latencies, TransferRequestDTO request,
+                       BiFunction<TransferRequestDTO, String, TransferResultDTO> call) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        try {
+            Future<?>[] workers = new Future<?>[CONCURRENCY];
+            for (int w = 0; w < CONCURRENCY; w++) {
+                workers[w] = executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < latencies.length; i = next.getAndIncrement()) {
+                        long t0 = System.nanoTime();
+                        TransferResultDTO result = call.apply(request, prefix + "-" + i);
+                        latencies[i] = System.nanoTime() - t0;
+                        assertEquals("success", result.getStatus());
+                    }
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Report(String name, double opsPerSecond, long p50Micros, long p99Micros) {
+        @Override
+        public String toString() {
+            return String.format("%-20s %10.0f ops/s  p50=%6dus  p99=%6dus", name, opsPerSecond, p50Micros, p99Micros);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.wallet.transfer.client;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.support.StubLedgerServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerClientBulkTest {
+    private static final int TRANSFERS = 20;
+
+    private StubLedgerServer ledger;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = StubLedgerServer.start();
+        callers = Executors.newFixedThreadPool(TRANSFERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        ledger.close();
+    }
+
+    @Test
+    void concurrentTransfers_areCoalescedIntoBulkCalls() {
+        LedgerClient client = new LedgerClient(new RestTemplate(), ledger.baseUrl(), StubLedgerServer.TRANSFER_API,
+                StubLedgerServer.BULK_TRANSFER_API, TRANSFERS, Duration.ofMillis(200), 2);
+        try {
+            List<TransferResultDTO> results = transferConcurrently(client);
+
+            for (int i = 0; i < TRANSFERS; i++) {
+                assertEquals("key-" + i, results.get(i).getTransferId());
+                assertEquals("success", results.get(i).getStatus());
+            }
+            assertEquals(TRANSFERS, ledger.getBulkItems());
+            assertTrue(ledger.getBulkRequests() < TRANSFERS, "expected transfers to share bulk calls");
+            assertEquals(0, ledger.getTransferRequests());
+        } finally {
+            client.destroy();
+        }
+    }
+
+    @Test
+    void missingBulkEndpoint_fallsBackToSingleCalls() {
+        LedgerClient client = new LedgerClient(new RestTemplate(), ledger.baseUrl(), StubLedgerServer.TRANSFER_API,
+                "/api/unknown/bulk", TRANSFERS, Duration.ofMillis(200), 2);
+        try {
+            List<TransferResultDTO> results = transferConcurrently(client);
+
+            for (int i = 0; i < TRANSFERS; i++) {
+                assertEquals("key-" + i, results.get(i).getTransferId());
+                assertEquals("success", results.get(i).getStatus());
+            }
+            assertEquals(TRANSFERS, ledger.getTransferRequests());
+        } finally {
+            client.destroy();
+        }
+    }
+
+    private List<TransferResultDTO> transferConcurrently(LedgerClient client) {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        List<CompletableFuture<TransferResultDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            String key = "key-" + i;
+            futures.add(CompletableFuture.supplyAsync(() -> client.transfer(request, key), callers));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+}
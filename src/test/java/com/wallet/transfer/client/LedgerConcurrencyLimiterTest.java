@@ -0,0 +1,54 @@
+package com.wallet.transfer.client;
+
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LedgerConcurrencyLimiterTest {
+
+    @Test
+    void acquireBeyondLimit_isRejectedWithRetryAfter() {
+        LedgerConcurrencyLimiter limiter = new LedgerConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5, Duration.ofSeconds(3));
+        long first = limiter.acquire();
+        limiter.acquire();
+
+        ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class, limiter::acquire);
+        assertEquals("3", e.getRetryAfterSeconds());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(first, false);
+        limiter.acquire();
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void overloadedCalls_shrinkLimitOncePerRoundTrip() {
+        LedgerConcurrencyLimiter limiter = new LedgerConcurrencyLimiter(8, 1, 10, Duration.ofSeconds(1), 0.5, Duration.ofSeconds(1));
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+
+        limiter.release(first, true);
+        limiter.release(second, true);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.release(limiter.acquire(), true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void fastCallsAtTheLimit_growItUpToMax() {
+        LedgerConcurrencyLimiter limiter = new LedgerConcurrencyLimiter(2, 1, 3, Duration.ofSeconds(1), 0.5, Duration.ofSeconds(1));
+        long held = limiter.acquire();
+        for (int i = 0; i < 20; i++) {
+            limiter.release(limiter.acquire(), false);
+        }
+        limiter.release(held, false);
+
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,156 @@
+package com.wallet.transfer.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerHedgerTest {
+    private LedgerHedger hedger;
+
+    @AfterEach
+    void tearDown() {
+        hedger.destroy();
+    }
+
+    @Test
+    void slowCall_isHedgedAndFasterHedgeWins() {
+        hedger = new LedgerHedger(0.95, Duration.ofMillis(20), 1.0, new StaticListableBeanFactory().getBeanProvider(LedgerConcurrencyLimiter.class));
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = hedger.call(() -> attempts.incrementAndGet() == 1 ? sleepAndGet(2_000, "primary") : "hedge");
+
+        assertEquals("hedge", result);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos(), "Expected the hedge to cut the wait short");
+        assertEquals(20, hedger.getDelayMillis());
+        assertEquals(1, hedger.getHedges());
+        assertEquals(1, hedger.getHedgeWins());
+    }
+
+    @Test
+    void exhaustedBudget_waitsForTheOriginalCall() {
+        hedger = new LedgerHedger(0.95, Duration.ofMillis(20), 0.0, new StaticListableBeanFactory().getBeanProvider(LedgerConcurrencyLimiter.class));
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            attempts.incrementAndGet();
+            return sleepAndGet(200, "primary");
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedger.getHedges());
+    }
+
+    @Test
+    void fullConcurrencyLimit_skipsTheHedge() {
+        LedgerConcurrencyLimiter limiter = new LedgerConcurrencyLimiter(1, 1, 1, Duration.ofSeconds(1), 0.5, Duration.ofSeconds(1));
+        hedger = new LedgerHedger(0.95, Duration.ofMillis(20), 1.0, limiter(limiter));
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // The original call holds the only slot
+        String result = hedger.call(() -> {
+            attempts.incrementAndGet();
+            return sleepAndGet(200, "primary");
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedger.getHedges());
+        assertEquals(1, hedger.getHedgesSkipped());
+        assertEquals(0, limiter.getRejected());
+    }
+
+    @Test
+    void hedge_holdsItsOwnConcurrencyLimitSlotUntilItFinishes() throws InterruptedException {
+        LedgerConcurrencyLimiter limiter = new LedgerConcurrencyLimiter(2, 1, 2, Duration.ofSeconds(1), 0.5, Duration.ofSeconds(1));
+        hedger = new LedgerHedger(0.95, Duration.ofMillis(20), 1.0, limiter(limiter));
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger inFlightDuringHedge = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                return sleepAndGet(200, "primary");
+            }
+            inFlightDuringHedge.set(limiter.getInFlight());
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(2, inFlightDuringHedge.get());
+        awaitInFlight(limiter, 0);
+    }
+
+    @Test
+    void originalCall_holdsItsSlotPastAWinningHedgeWithoutMovingTheLimit() throws InterruptedException {
+        LedgerConcurrencyLimiter limiter = new LedgerConcurrencyLimiter(2, 1, 2, Duration.ofMillis(100), 0.5, Duration.ofSeconds(1));
+        hedger = new LedgerHedger(0.95, Duration.ofMillis(20), 1.0, limiter(limiter));
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.call(() -> attempts.incrementAndGet() == 1 ? sleepAndGet(500, "primary") : "hedge");
+
+        assertEquals("hedge", result);
+        // The hedge's slot is free again, the original request is still running
+        awaitInFlight(limiter, 1);
+        awaitInFlight(limiter, 0);
+        // Slower than the latency threshold, yet not taken as a sign of overload
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void failureBeforeTheDelay_isNotHedged() {
+        hedger = new LedgerHedger(0.95, Duration.ofMillis(20), 1.0, new StaticListableBeanFactory().getBeanProvider(LedgerConcurrencyLimiter.class));
+        AtomicInteger attempts = new AtomicInteger();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> hedger.call(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("ledger said no");
+        }));
+
+        assertEquals("ledger said no", e.getMessage());
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedger.getHedges());
+    }
+
+    private static void awaitInFlight(LedgerConcurrencyLimiter limiter, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (limiter.getInFlight() != expected) {
+            assertTrue(System.nanoTime() < deadline, "expected " + expected + " call(s) in flight");
+            Thread.sleep(5);
+        }
+    }
+
+    private static ObjectProvider<LedgerConcurrencyLimiter> limiter(LedgerConcurrencyLimiter limiter) {
+        return new StaticListableBeanFactory(Map.of("ledgerConcurrencyLimiter", limiter)).getBeanProvider(LedgerConcurrencyLimiter.class);
+    }
+
+    private void warmUp() {
+        // Enough fast calls for the delay to settle at the minimum
+        for (int i = 0; i < 64; i++) {
+            hedger.call(() -> "ok");
+        }
+    }
+
+    private static String sleepAndGet(long millis, String value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
@@ -1,8 +1,13 @@
 package com.wallet.transfer.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.transfer.dto.BulkTransferStatusDTO;
 import com.wallet.transfer.dto.TransferRequestDTO;
 import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.service.TransferHistoryService;
 import com.wallet.transfer.service.TransferService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,10 +20,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -30,6 +43,9 @@ class TransferControllerTest {
     @Mock
     private TransferService transferService;
 
+    @Mock
+    private TransferHistoryService transferHistoryService;
+
     private ObjectMapper objectMapper;
 
     @InjectMocks
@@ -62,10 +78,71 @@ class TransferControllerTest {
                 .andExpect(jsonPath("$.status").value("SUCCESS"));
     }
 
+    @Test
+    void transfer_async_returnsAccepted() throws Exception {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId("async-key");
+        result.setStatus(TransferStatus.PENDING);
+
+        Mockito.when(transferService.isAsyncEnabled()).thenReturn(true);
+        Mockito.when(transferService.submitTransfer(any(TransferRequestDTO.class), any())).thenReturn(result);
+
+        mockMvc.perform(post("/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "async-key")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.transferId").value("async-key"))
+                .andExpect(jsonPath("$.status").value(TransferStatus.PENDING));
+    }
+
+    @Test
+    void transfer_async_queueFull_returnsServiceUnavailable() throws Exception {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+
+        Mockito.when(transferService.isAsyncEnabled()).thenReturn(true);
+        Mockito.when(transferService.submitTransfer(any(TransferRequestDTO.class), any()))
+                .thenThrow(new ServiceOverloadedException("Transfer queue is full, retry later", Duration.ofSeconds(2)));
+
+        mockMvc.perform(post("/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "async-key")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
+    @Test
+    void fetchTransferStatuses_returnsStatusMapAndUnknownIds() throws Exception {
+        Map<String, String> statuses = new LinkedHashMap<>();
+        statuses.put("t1", "success");
+        Mockito.when(transferService.getTransferStatuses(List.of("t1", "t2")))
+                .thenReturn(new BulkTransferStatusDTO(statuses, List.of("t2")));
+
+        mockMvc.perform(post("/transfers/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"t1\",\"t2\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statuses.t1").value("success"))
+                .andExpect(jsonPath("$.unknown[0]").value("t2"));
+    }
+
+    @Test
+    void fetchTransferStatuses_tooManyIds_returnsBadRequest() throws Exception {
+        Mockito.when(transferService.getTransferStatuses(any(InputStream.class)))
+                .thenThrow(new IllegalArgumentException("At most 10000 transfer ids per request"));
+
+        mockMvc.perform(post("/transfers/status")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("t1\nt2\n"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void fetchTransferStatusById_notFound() throws Exception {
         String transferId = "nonexistent-id";
-        Mockito.when(transferService.getTransferById(transferId))
+        Mockito.when(transferService.getTransferStatus(transferId))
                 .thenThrow(new IllegalArgumentException("Transfer not found with ID: " + transferId));
 
         mockMvc.perform(
@@ -80,13 +157,32 @@ class TransferControllerTest {
         String transferId = "existing-id";
         String expectedStatus = "SUCCESS";
 
-        Mockito.when(transferService.getTransferById(transferId))
-                .thenReturn(expectedStatus);
+        Mockito.when(transferService.getTransferStatus(transferId))
+                .thenReturn(new TransferStatusDTO(transferId, expectedStatus, 1L));
 
         mockMvc.perform(
                         org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get("/transfers/{id}", transferId)
                 )
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
                 .andExpect(org.springframework.test.web.servlet.result.MockMvcResultMatchers.content().string(expectedStatus));
     }
+
+    @Test
+    void fetchTransferStatusById_unchangedVersion_returnsNotModified() throws Exception {
+        String transferId = "polled-id";
+        Mockito.when(transferService.getTransferStatus(transferId))
+                .thenReturn(new TransferStatusDTO(transferId, TransferStatus.PENDING, 0L))
+                .thenReturn(new TransferStatusDTO(transferId, "success", 1L));
+
+        mockMvc.perform(get("/transfers/{id}", transferId).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/transfers/{id}", transferId).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(content().string("success"));
+    }
 }
@@ -1,8 +1,13 @@
 package com.wallet.transfer.integration;
 
+import com.wallet.transfer.client.LedgerConcurrencyLimiter;
 import com.wallet.transfer.dto.TransferRequestDTO;
 import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.repository.TransferRepository;
 import com.wallet.transfer.service.TransferService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,9 +15,13 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -25,6 +34,15 @@ class CircuitBreakerIntegrationTest {
     @Autowired
     private TransferService transferService;
 
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private LedgerConcurrencyLimiter ledgerConcurrencyLimiter;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
     @Test
     void circuitBreakerFallback_onLedgerFailure() {
         TransferRequestDTO request = new TransferRequestDTO();
@@ -36,4 +54,24 @@ class CircuitBreakerIntegrationTest {
         assertNotNull(result);
         assertEquals("failure", result.getStatus(), "Expected fallback status 'failure'");
     }
+
+    @Test
+    void ledgerLimitReached_rejectsWithoutCountingAsLedgerFailure() {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("ledgerService");
+        int failedCallsBefore = circuitBreaker.getMetrics().getNumberOfFailedCalls();
+        List<Long> heldSlots = new ArrayList<>();
+        try {
+            while (ledgerConcurrencyLimiter.getInFlight() < ledgerConcurrencyLimiter.getLimit()) {
+                heldSlots.add(ledgerConcurrencyLimiter.acquire());
+            }
+
+            ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class,
+                    () -> transferService.transfer(new TransferRequestDTO(3L, 4L, BigDecimal.ONE), "limit-shed-1"));
+            assertNotNull(e.getRetryAfter());
+        } finally {
+            heldSlots.forEach(start -> ledgerConcurrencyLimiter.release(start, false));
+        }
+        assertEquals(failedCallsBefore, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+        assertTrue(transferRepository.findByTransferId("limit-shed-1").isEmpty(), "Expected the claim to be released for a retry");
+    }
 }
@@ -0,0 +1,142 @@
+package com.wallet.transfer.integration;
+
+import com.wallet.transfer.dto.BulkTransferStatusDTO;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.repository.TransferRepository;
+import com.wallet.transfer.service.TransferService;
+import com.wallet.transfer.support.StubLedgerServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyClaimIntegrationTest {
+    private static final StubLedgerServer LEDGER = startLedger();
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @DynamicPropertySource
+    static void ledgerProperties(DynamicPropertyRegistry registry) {
+        registry.add("ledger-api.host", LEDGER::baseUrl);
+        registry.add("ledger-api.transfer.api", () -> StubLedgerServer.TRANSFER_API);
+        registry.add("transfer.idempotency.wait-timeout", () -> "5s");
+    }
+
+    @AfterAll
+    static void stopLedger() {
+        LEDGER.close();
+    }
+
+    @Test
+    void concurrentRequestsWithSameKey_callLedgerOnce() throws Exception {
+        LEDGER.setLatency(Duration.ofMillis(300));
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        String idempotencyKey = "claim-once-key";
+        long ledgerCallsBefore = LEDGER.getTransferRequests();
+        int threads = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TransferResultDTO>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return transferService.transfer(request, idempotencyKey);
+            }));
+        }
+        start.countDown();
+        for (Future<TransferResultDTO> result : results) {
+            assertEquals("success", result.get().getStatus());
+            assertEquals(idempotencyKey, result.get().getTransferId());
+        }
+        executor.shutdown();
+
+        assertEquals(1, LEDGER.getTransferRequests() - ledgerCallsBefore, "ledger must be called exactly once");
+        assertTrue(transferRepository.findByTransferId(idempotencyKey).isPresent());
+        assertEquals(1, transferRepository.findAll().stream()
+                .filter(t -> idempotencyKey.equals(t.getTransferId()))
+                .count());
+    }
+
+    @Test
+    void transferBatch_reportsPartialFailuresAndReusesExistingResults() {
+        LEDGER.setLatency(Duration.ZERO);
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.ONE);
+        assertEquals("success", transferService.transfer(request, "batch-existing").getStatus());
+        long ledgerCallsBefore = LEDGER.getTransferRequests();
+
+        List<TransferResultDTO> results = transferService.transferBatch(
+                List.of(request, request, new TransferRequestDTO(1L, 1L, BigDecimal.ONE), request, request),
+                List.of("batch-a", "batch-b", "batch-invalid", "batch-existing", "batch-a"));
+
+        assertEquals(5, results.size());
+        assertEquals("success", results.get(0).getStatus());
+        assertEquals("batch-a", results.get(0).getTransferId());
+        assertEquals("success", results.get(1).getStatus());
+        assertEquals("failure", results.get(2).getStatus());
+        assertTrue(results.get(2).getError() != null);
+        assertEquals("success", results.get(3).getStatus());
+        assertEquals("batch-a", results.get(4).getTransferId());
+        assertEquals(2, LEDGER.getTransferRequests() - ledgerCallsBefore, "only newly claimed keys reach the ledger");
+        assertEquals("success", transferRepository.findByTransferId("batch-b").orElseThrow().getStatus());
+        assertTrue(transferRepository.findByTransferId("batch-invalid").isEmpty());
+    }
+
+    @Test
+    void statusProjection_returnsFinalStatusAndVersion() {
+        LEDGER.setLatency(Duration.ZERO);
+        transferService.transfer(new TransferRequestDTO(1L, 2L, BigDecimal.ONE), "status-projection-key");
+
+        TransferRepository.StatusView view = transferRepository.findStatusByTransferId("status-projection-key").orElseThrow();
+
+        assertEquals("success", view.getStatus());
+        assertEquals(1L, view.getVersion());
+        assertEquals(1L, transferService.getTransferStatus("status-projection-key").getVersion());
+        assertTrue(transferRepository.findStatusByTransferId("status-projection-missing").isEmpty());
+    }
+
+    @Test
+    void bulkStatusLookup_resolvesKnownIdsAndReportsUnknownOnes() {
+        LEDGER.setLatency(Duration.ZERO);
+        transferService.transfer(new TransferRequestDTO(1L, 2L, BigDecimal.ONE), "bulk-status-1");
+        transferService.transfer(new TransferRequestDTO(1L, 2L, BigDecimal.ONE), "bulk-status-2");
+
+        BulkTransferStatusDTO result = transferService.getTransferStatuses(List.of("bulk-status-2", "bulk-status-missing", "bulk-status-1"));
+
+        assertEquals(List.of("bulk-status-2", "bulk-status-1"), List.copyOf(result.getStatuses().keySet()));
+        assertEquals("success", result.getStatuses().get("bulk-status-1"));
+        assertEquals(List.of("bulk-status-missing"), result.getUnknown());
+        assertEquals(1, transferRepository.findStatusesByTransferIdIn(List.of("bulk-status-1", "bulk-status-missing")).size());
+    }
+
+    private static StubLedgerServer startLedger() {
+        try {
+            return StubLedgerServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.wallet.transfer.integration;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource(properties = {
+        "ledger-api.host=http://ledger-service:59999", // unreachable to force circuit breaker fallback
+        "ledger-api.transfer.api=/api/ledger/transfer"
+})
+class MetricsEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Test
+    void prometheusEndpoint_exposesTransferPipelineMetrics() throws Exception {
+        transferService.transfer(new TransferRequestDTO(1L, 2L, BigDecimal.ONE), "metrics-key-1");
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("transfer_phase_seconds_bucket{application=\"transfer-service\",phase=\"idempotency\"")))
+                .andExpect(content().string(containsString("transfer_ledger_call_seconds_count{application=\"transfer-service\",outcome=\"error\",} 1.0")))
+                .andExpect(content().string(containsString("transfer_circuit_fallback_total{application=\"transfer-service\",path=\"transfer\",} 1.0")))
+                .andExpect(content().string(containsString("transfer_singleflight_calls_total")))
+                .andExpect(content().string(containsString("cache_gets_total{application=\"transfer-service\",cache=\"transfer-results\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("ledger_client_connections")))
+                .andExpect(content().string(containsString("transfer_cleanup_rows_deleted_total")));
+    }
+}
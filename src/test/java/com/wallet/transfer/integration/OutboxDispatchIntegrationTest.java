@@ -0,0 +1,120 @@
+package com.wallet.transfer.integration;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.repository.TransferRepository;
+import com.wallet.transfer.service.OutboxTransferDispatcher;
+import com.wallet.transfer.service.TransferService;
+import com.wallet.transfer.support.StubLedgerServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxDispatchIntegrationTest {
+    private static final StubLedgerServer LEDGER = startLedger();
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private OutboxTransferDispatcher outboxTransferDispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void outboxProperties(DynamicPropertyRegistry registry) {
+        registry.add("ledger-api.host", LEDGER::baseUrl);
+        registry.add("ledger-api.transfer.api", () -> StubLedgerServer.TRANSFER_API);
+        registry.add("transfer.async.enabled", () -> "true");
+        registry.add("transfer.async.dispatch", () -> "outbox");
+        registry.add("transfer.outbox.poll-interval", () -> "20ms");
+        registry.add("transfer.outbox.retry-backoff", () -> "50ms");
+    }
+
+    @AfterAll
+    static void stopLedger() {
+        LEDGER.close();
+    }
+
+    @Test
+    void submittedTransfer_isDispatchedFromTheOutbox() {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+
+        TransferResultDTO accepted = transferService.submitTransfer(request, "outbox-key-1");
+
+        assertEquals("pending", accepted.getStatus());
+        awaitTrue(() -> "success".equals(transferRepository.findByTransferId("outbox-key-1").orElseThrow().getStatus()));
+        // The entry is deleted in the transaction that finalizes the transfer
+        assertEquals(0, outboxEntries("outbox-key-1"));
+        assertEquals("success", transferService.submitTransfer(request, "outbox-key-1").getStatus());
+        assertEquals(0, outboxEntries("outbox-key-1"), "a repeated key must not add an outbox entry");
+    }
+
+    @Test
+    void failedLedgerCall_isRetriedUntilItSucceeds() {
+        LEDGER.setErrorRate(1.0);
+        long retriedBefore = outboxTransferDispatcher.getRetried();
+        try {
+            transferService.submitTransfer(new TransferRequestDTO(3L, 4L, BigDecimal.ONE), "outbox-retry-key");
+            awaitTrue(() -> outboxTransferDispatcher.getRetried() > retriedBefore);
+            assertEquals("pending", transferRepository.findByTransferId("outbox-retry-key").orElseThrow().getStatus());
+            assertEquals(1, outboxEntries("outbox-retry-key"));
+            // Owned by the outbox, so the reconciler leaves it alone however old it is
+            assertTrue(transferRepository.findUnresolvedAfter(TransferStatus.PENDING, LocalDateTime.now().plusMinutes(1), 0L, 1, 0,
+                    PageRequest.of(0, 100)).stream().noneMatch(transfer -> "outbox-retry-key".equals(transfer.getTransferId())));
+        } finally {
+            LEDGER.setErrorRate(0.0);
+        }
+
+        awaitTrue(() -> "success".equals(transferRepository.findByTransferId("outbox-retry-key").orElseThrow().getStatus()));
+        assertEquals(0, outboxEntries("outbox-retry-key"));
+    }
+
+    private int outboxEntries(String transferId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfer_outbox WHERE transfer_id = ?", Integer.class, transferId);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10s");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static StubLedgerServer startLedger() {
+        try {
+            return StubLedgerServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.wallet.transfer.integration;
+
+import com.wallet.transfer.dto.TransferHistoryDTO;
+import com.wallet.transfer.dto.TransferHistoryPageDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.repository.TransferRepository;
+import com.wallet.transfer.service.TransferHistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class TransferHistoryIntegrationTest {
+    private static final long ACCOUNT = 9_001L;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TransferHistoryService transferHistoryService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void history_pagesThroughBothSidesNewestFirstAndExportsEverything() throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            boolean debit = i % 2 == 0;
+            expected.add(0, save("history-" + i, debit ? ACCOUNT : ACCOUNT + 1, debit ? ACCOUNT + 1 : ACCOUNT).getTransferId());
+        }
+        save("history-other", ACCOUNT + 1, ACCOUNT + 2);
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransferHistoryPageDTO page = transferHistoryService.getHistory(ACCOUNT, cursor, 2);
+            page.getTransfers().stream().map(TransferHistoryDTO::getTransferId).forEach(paged::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(expected, paged);
+        assertEquals(3, pages);
+
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        transferHistoryService.exportHistory(ACCOUNT, export);
+        assertEquals(5, export.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void historyEndpoints_serveJsonPagesAndNdjsonExport() throws Exception {
+        save("history-endpoint-1", ACCOUNT + 10, ACCOUNT + 11);
+        save("history-endpoint-2", ACCOUNT + 11, ACCOUNT + 10);
+
+        mockMvc.perform(get("/transfers").param("accountId", String.valueOf(ACCOUNT + 10)).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transfers[0].transferId").value("history-endpoint-2"))
+                .andExpect(jsonPath("$.nextCursor").exists());
+        mockMvc.perform(get("/transfers").param("accountId", String.valueOf(ACCOUNT + 10)).param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+
+        MvcResult export = mockMvc.perform(get("/transfers/export").param("accountId", String.valueOf(ACCOUNT + 10)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(2, body.lines().count());
+    }
+
+    private Transfer save(String transferId, long from, long to) {
+        Transfer transfer = new Transfer();
+        transfer.setTransferId(transferId);
+        transfer.setFromAccountId(from);
+        transfer.setToAccountId(to);
+        transfer.setAmount(BigDecimal.ONE);
+        transfer.setStatus("success");
+        return transferRepository.saveAndFlush(transfer);
+    }
+}
@@ -0,0 +1,123 @@
+package com.wallet.transfer.integration;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.repository.TransferRepository;
+import com.wallet.transfer.service.TransferReplayBuffer;
+import com.wallet.transfer.service.TransferService;
+import com.wallet.transfer.support.StubLedgerServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransferReplayBufferIntegrationTest {
+    private static final StubLedgerServer LEDGER = startLedger();
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TransferReplayBuffer transferReplayBuffer;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @DynamicPropertySource
+    static void bufferProperties(DynamicPropertyRegistry registry) {
+        registry.add("ledger-api.host", LEDGER::baseUrl);
+        registry.add("ledger-api.transfer.api", () -> StubLedgerServer.TRANSFER_API);
+        registry.add("transfer.buffer.enabled", () -> "true");
+        registry.add("transfer.buffer.sweep-interval", () -> "PT1H");
+    }
+
+    @AfterEach
+    void closeCircuit() {
+        circuitBreakerRegistry.circuitBreaker("ledgerService").transitionToClosedState();
+    }
+
+    @AfterAll
+    static void stopLedger() {
+        LEDGER.close();
+    }
+
+    @Test
+    void openCircuit_queuesTransferAndReplaysItOnceClosed() {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("ledgerService");
+        circuitBreaker.transitionToOpenState();
+        // The counters are shared with the other tests in this class
+        long queuedBefore = transferReplayBuffer.getQueued();
+        long replayedBefore = transferReplayBuffer.getReplayed();
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+
+        assertEquals("queued", transferService.transfer(request, "buffer-key-1").getStatus());
+        assertEquals("queued", transferService.transfer(request, "buffer-key-1").getStatus(), "a retry must not queue it twice");
+        assertEquals("queued", transferRepository.findByTransferId("buffer-key-1").orElseThrow().getStatus());
+        assertEquals(queuedBefore + 1, transferReplayBuffer.getQueued());
+
+        circuitBreaker.transitionToClosedState();
+
+        awaitTrue(() -> transferReplayBuffer.getReplayed() == replayedBefore + 1);
+        assertEquals("success", transferRepository.findByTransferId("buffer-key-1").orElseThrow().getStatus());
+        assertEquals("success", transferService.transfer(request, "buffer-key-1").getStatus());
+    }
+
+    @Test
+    void ledgerRefusal_failsTheQueuedTransferInsteadOfQueueingItAgain() {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("ledgerService");
+        circuitBreaker.transitionToOpenState();
+        long failedBefore = transferReplayBuffer.getFailed();
+        assertEquals("queued", transferService.transfer(new TransferRequestDTO(3L, 4L, BigDecimal.ONE), "buffer-refused-key").getStatus());
+
+        LEDGER.setErrorStatus(422);
+        LEDGER.setErrorRate(1.0);
+        try {
+            circuitBreaker.transitionToClosedState();
+            awaitTrue(() -> transferReplayBuffer.getFailed() > failedBefore);
+        } finally {
+            LEDGER.setErrorRate(0.0);
+            LEDGER.setErrorStatus(500);
+        }
+        assertEquals("failure", transferRepository.findByTransferId("buffer-refused-key").orElseThrow().getStatus());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10s");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static StubLedgerServer startLedger() {
+        try {
+            return StubLedgerServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
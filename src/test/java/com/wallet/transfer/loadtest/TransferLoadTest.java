@@ -0,0 +1,296 @@
+package com.wallet.transfer.loadtest;
+
+import com.wallet.transfer.support.StubLedgerServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end load test: the full application on a random port over the H2 test database, with the ledger
+ * replaced by an in-process {@link StubLedgerServer}. Requests are issued open-loop at a fixed rate and
+ * latency is measured from each request's scheduled start, so a stalled server shows up in the percentiles
+ * instead of silently lowering the request rate. Run with {@code mvn -Ploadtest test}; the knobs are system
+ * properties, e.g. {@code -Dloadtest.rate=500 -Dloadtest.duration=60 -Dloadtest.ledger.error-rate=0.01}.
+ * Percentile distributions are written to {@code target/loadtest/*.hgrm}.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class TransferLoadTest {
+    private static final int RATE = Integer.getInteger("loadtest.rate", 200);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup", 5);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("loadtest.max-in-flight", 2_000);
+    private static final int BATCH_SIZE = Integer.getInteger("loadtest.batch-size", 10);
+    /** Relative weights of single transfers, batches and status reads. */
+    private static final int TRANSFER_WEIGHT = Integer.getInteger("loadtest.mix.transfer", 70);
+    private static final int BATCH_WEIGHT = Integer.getInteger("loadtest.mix.batch", 10);
+    private static final int STATUS_WEIGHT = Integer.getInteger("loadtest.mix.status", 20);
+    private static final long ACCOUNTS = Long.getLong("loadtest.accounts", 10_000L);
+    private static final Duration LEDGER_LATENCY = Duration.ofMillis(Long.getLong("loadtest.ledger.latency-ms", 5L));
+    private static final Duration LEDGER_JITTER = Duration.ofMillis(Long.getLong("loadtest.ledger.jitter-ms", 5L));
+    private static final double LEDGER_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.ledger.error-rate", "0"));
+    private static final double LEDGER_FAILURE_RATE = Double.parseDouble(System.getProperty("loadtest.ledger.failure-rate", "0"));
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int KNOWN_KEYS = 4096;
+
+    private static final StubLedgerServer LEDGER = startLedger();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong keySequence = new AtomicLong();
+    private final AtomicReferenceArray<String> knownKeys = new AtomicReferenceArray<>(KNOWN_KEYS);
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("ledger-api.host", LEDGER::baseUrl);
+        registry.add("ledger-api.transfer.api", () -> StubLedgerServer.TRANSFER_API);
+        // The test profile logs every statement and debug line, which would dominate the measurement
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.wallet.transfer", () -> "WARN");
+        registry.add("logging.level.org.hibernate.SQL", () -> "WARN");
+    }
+
+    private static StubLedgerServer startLedger() {
+        try {
+            StubLedgerServer ledger = StubLedgerServer.start();
+            ledger.setLatency(LEDGER_LATENCY, LEDGER_JITTER);
+            ledger.setErrorRate(LEDGER_ERROR_RATE);
+            ledger.setFailureRate(LEDGER_FAILURE_RATE);
+            return ledger;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterAll
+    static void stopLedger() {
+        LEDGER.close();
+    }
+
+    @Test
+    void mixedWorkloadAtTargetRate() throws Exception {
+        // A cold JVM hit at full rate times out enough ledger calls to open the circuit for the whole run
+        Results warmup = new Results();
+        for (int step = 1; step <= 4; step++) {
+            run(warmup, Math.max(1, RATE * step / 4), Math.max(1, WARMUP_SECONDS / 4));
+        }
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("ledgerService");
+        long ledgerCallsBefore = LEDGER.getTransferRequests();
+        Results results = new Results();
+        long elapsedNanos = run(results, RATE, DURATION_SECONDS);
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%nload test: target %d req/s for %ds, ledger latency %s + exp(%s), error rate %.3f, failure rate %.3f%n",
+                RATE, DURATION_SECONDS, LEDGER_LATENCY, LEDGER_JITTER, LEDGER_ERROR_RATE, LEDGER_FAILURE_RATE);
+        System.out.printf(Locale.ROOT, "issued %d requests, achieved %.1f req/s, dropped (max in flight) %d, transport errors %d, ledger calls %d%n",
+                results.issued.sum(), results.completed() / seconds, results.dropped.sum(), results.transportErrors.sum(),
+                LEDGER.getTransferRequests() - ledgerCallsBefore);
+        System.out.printf(Locale.ROOT, "ledger circuit %s, failure rate %.1f%%, not permitted calls %d%n",
+                circuitBreaker.getState(), circuitBreaker.getMetrics().getFailureRate(),
+                circuitBreaker.getMetrics().getNumberOfNotPermittedCalls());
+        Path reportDir = Files.createDirectories(Path.of("target", "loadtest"));
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = results.latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-8s %8d req %9.1f req/s  p50=%8.2fms p90=%8.2fms p99=%8.2fms p99.9=%8.2fms max=%8.2fms  status=%s%n",
+                    operation.name().toLowerCase(Locale.ROOT), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()), results.statusCodes.get(operation));
+            Path report = reportDir.resolve(operation.name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(report))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println("percentile distributions written to " + reportDir.toAbsolutePath());
+
+        assertEquals(0, results.transportErrors.sum(), "requests failed without an HTTP response");
+    }
+
+    /**
+     * Issues requests at the given rate for the given number of seconds and waits for the stragglers.
+     */
+    private long run(Results results, int rate, int seconds) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) rate * seconds;
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long scheduled = start + i * intervalNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                results.issued.increment();
+                if (!inFlight.tryAcquire()) {
+                    results.dropped.increment();
+                    continue;
+                }
+                requests.execute(() -> {
+                    try {
+                        send(nextOperation(), scheduled, results);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private Operation nextOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(TRANSFER_WEIGHT + BATCH_WEIGHT + STATUS_WEIGHT);
+        if (roll < TRANSFER_WEIGHT) {
+            return Operation.TRANSFER;
+        }
+        return roll < TRANSFER_WEIGHT + BATCH_WEIGHT ? Operation.BATCH : Operation.STATUS;
+    }
+
+    private void send(Operation operation, long scheduledNanos, Results results) {
+        HttpRequest request = switch (operation) {
+            case TRANSFER -> transferRequest();
+            case BATCH -> batchRequest();
+            case STATUS -> statusRequest();
+        };
+        if (request == null) {
+            send(Operation.TRANSFER, scheduledNanos, results);
+            return;
+        }
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledNanos);
+            results.latencies.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            results.statusCodes.get(operation).computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+        } catch (IOException e) {
+            results.transportErrors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest transferRequest() {
+        String key = nextKey();
+        return HttpRequest.newBuilder(uri("/transfers"))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", key)
+                .POST(HttpRequest.BodyPublishers.ofString(transferJson()))
+                .build();
+    }
+
+    private HttpRequest batchRequest() {
+        List<String> keys = new ArrayList<>(BATCH_SIZE);
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            keys.add(nextKey());
+            body.append(i == 0 ? "" : ",").append(transferJson());
+        }
+        return HttpRequest.newBuilder(uri("/transfers/batch"))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", String.join(",", keys))
+                .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                .build();
+    }
+
+    /**
+     * Reads back a recently created transfer, or returns {@code null} before any exists.
+     */
+    private HttpRequest statusRequest() {
+        String key = knownKeys.get(ThreadLocalRandom.current().nextInt(KNOWN_KEYS));
+        return key == null ? null : HttpRequest.newBuilder(uri("/transfers/" + key)).GET().build();
+    }
+
+    private String nextKey() {
+        long sequence = keySequence.incrementAndGet();
+        String key = "load-" + sequence;
+        knownKeys.set((int) (sequence % KNOWN_KEYS), key);
+        return key;
+    }
+
+    private static String transferJson() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long from = random.nextLong(1, ACCOUNTS + 1);
+        long to = from % ACCOUNTS + 1;
+        return "{\"fromAccountId\":" + from + ",\"toAccountId\":" + to + ",\"amount\":" + random.nextInt(1, 1000) + ".00}";
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private enum Operation {
+        TRANSFER, BATCH, STATUS
+    }
+
+    private static final class Results {
+        private final Map<Operation, Histogram> latencies = new ConcurrentHashMap<>();
+        private final Map<Operation, Map<Integer, LongAdder>> statusCodes = new ConcurrentHashMap<>();
+        private final LongAdder issued = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder transportErrors = new LongAdder();
+
+        private Results() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+                statusCodes.put(operation, new ConcurrentHashMap<>());
+            }
+        }
+
+        private long completed() {
+            return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.wallet.transfer.scheduler;
+
+import com.wallet.transfer.repository.TransferRepository;
+import com.wallet.transfer.repository.TransferRepository.CleanupKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.Pageable;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferCleanupServiceTest {
+
+    @Test
+    void cleanupOldTransfers_deletesInKeysetChunks() {
+        TransferRepository repository = mock(TransferRepository.class);
+        LocalDateTime old = LocalDateTime.now().minusDays(3);
+        CleanupKey first = key(1L, old);
+        CleanupKey second = key(2L, old.plusSeconds(1));
+        CleanupKey third = key(3L, old.plusSeconds(2));
+        when(repository.findByCreatedAtBeforeOrderByCreatedAtAscIdAsc(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of());
+        when(repository.findCleanupKeysAfter(any(LocalDateTime.class), eq(second.getCreatedAt()), eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(third));
+        when(repository.findCleanupKeysAfter(any(LocalDateTime.class), eq(third.getCreatedAt()), eq(3L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(repository.deleteByIdIn(List.of(1L, 2L))).thenReturn(2);
+        when(repository.deleteByIdIn(List.of(3L))).thenReturn(1);
+
+        TransferCleanupService service = new TransferCleanupService(repository,
+                new StaticListableBeanFactory().getBeanProvider(DataSource.class), Duration.ofHours(24), 2,
+                100_000, Duration.ofMinutes(1), 0.75, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        service.cleanupOldTransfers();
+
+        verify(repository).deleteByIdIn(List.of(1L, 2L));
+        verify(repository).deleteByIdIn(List.of(3L));
+        assertEquals(3, service.getRowsDeleted());
+        assertEquals(0, service.getLagSeconds());
+        assertTrue(service.getLastChunkMillis() >= 0);
+    }
+
+    private static CleanupKey key(long id, LocalDateTime createdAt) {
+        return new CleanupKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.wallet.transfer.scheduler;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs partition retention against the db/init.sql schema on a real Postgres, which the mocked
+ * {@link TransferPartitionManagerTest} cannot stand in for. Skipped when Docker is not available.
+ */
+class TransferPartitionManagerPostgresTest {
+    private static PostgreSQLContainer<?> postgres;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine").withDatabaseName("wallet_transfer");
+        postgres.start();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbcTemplate.execute(Files.readString(Path.of("db/init.sql")));
+    }
+
+    @AfterAll
+    static void stopPostgres() {
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Test
+    void maintainPartitions_dropsExpiredPartitionsAndDefaultRowsNextToTheDefaultPartition() {
+        LocalDateTime now = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+        LocalDateTime expiredDay = now.truncatedTo(ChronoUnit.DAYS).minusDays(3);
+        TransferPartitionManager manager = new TransferPartitionManager(jdbcTemplate, Duration.ofHours(24), ChronoUnit.DAYS, 1, true, 2);
+        manager.createPartitions(expiredDay);
+        insert("in-expired-partition", expiredDay.plusHours(1));
+        // No partition covers ten days ago, so these land in TRANSFER_DEFAULT
+        for (int i = 0; i < 3; i++) {
+            insert("in-default-" + i, now.minusDays(10));
+        }
+        manager.createPartitions(now);
+        insert("recent", now);
+
+        manager.maintainPartitions();
+
+        List<String> partitions = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'transfer'", String.class);
+        assertFalse(partitions.contains(TransferPartitionManager.partitionName(expiredDay, ChronoUnit.DAYS)));
+        assertTrue(partitions.contains("transfer_default"));
+        assertEquals(List.of("recent"), jdbcTemplate.queryForList("SELECT transfer_id FROM transfer", String.class));
+        assertEquals(List.of("recent"), jdbcTemplate.queryForList("SELECT transfer_id FROM transfer_key", String.class));
+    }
+
+    @Test
+    void maintainPartitions_keepsTheKeyOfAnExpiredRowInASurvivingPartition() {
+        LocalDateTime now = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+        // Older than the cutoff, but its partition also covers the cutoff and is kept
+        LocalDateTime createdAt = now.minusDays(1).truncatedTo(ChronoUnit.DAYS);
+        TransferPartitionManager manager = new TransferPartitionManager(jdbcTemplate, Duration.ofHours(24), ChronoUnit.DAYS, 1, true, 2);
+        manager.createPartitions(createdAt);
+        insert("retried-key", createdAt);
+
+        try {
+            manager.maintainPartitions();
+
+            assertEquals(List.of("retried-key"), jdbcTemplate.queryForList("SELECT transfer_id FROM transfer_key WHERE transfer_id = 'retried-key'", String.class));
+            // A retry with the same key is still recognised as a duplicate
+            assertEquals(0, insert("retried-key", now));
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfer WHERE transfer_id = 'retried-key'", Integer.class));
+        } finally {
+            // The other test expects only its own rows
+            jdbcTemplate.update("DELETE FROM transfer WHERE transfer_id = 'retried-key'");
+        }
+    }
+
+    private static int insert(String transferId, LocalDateTime createdAt) {
+        return jdbcTemplate.update("INSERT INTO transfer (transfer_id, from_account_id, to_account_id, amount, status, created_at) " +
+                "VALUES (?, 1, 2, 10, 'success', ?)", transferId, createdAt);
+    }
+}
@@ -0,0 +1,75 @@
+package com.wallet.transfer.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferPartitionManagerTest {
+
+    @Test
+    void partitionNames_roundTrip() {
+        LocalDateTime hour = LocalDateTime.of(2026, 10, 18, 7, 0);
+        assertEquals("transfer_p2026101807", TransferPartitionManager.partitionName(hour, ChronoUnit.HOURS));
+        assertEquals("transfer_p20261018", TransferPartitionManager.partitionName(hour, ChronoUnit.DAYS));
+        assertEquals(Optional.of(hour), TransferPartitionManager.partitionStart("transfer_p2026101807", ChronoUnit.HOURS));
+        assertEquals(Optional.of(hour.truncatedTo(ChronoUnit.DAYS)), TransferPartitionManager.partitionStart("transfer_p20261018", ChronoUnit.DAYS));
+        assertEquals(Optional.empty(), TransferPartitionManager.partitionStart("transfer_default", ChronoUnit.DAYS));
+    }
+
+    @Test
+    void maintainPartitions_createsAheadAndDropsOnlyExpired() {
+        JdbcTemplate jdbcTemplate = jdbcTemplate(List.of(new TransferPartitionManager.Partition("transfer_p20261016", false),
+                new TransferPartitionManager.Partition("transfer_p20261017", false), new TransferPartitionManager.Partition("transfer_p20261018", false)));
+        TransferPartitionManager manager = new TransferPartitionManager(jdbcTemplate, Duration.ofHours(24), ChronoUnit.DAYS, 2, true, 1000);
+
+        manager.maintainPartitions();
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS transfer_p20261018 PARTITION OF transfer FOR VALUES FROM ('2026-10-18 00:00:00') TO ('2026-10-19 00:00:00')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS transfer_p20261020 PARTITION OF transfer FOR VALUES FROM ('2026-10-20 00:00:00') TO ('2026-10-21 00:00:00')");
+        verify(jdbcTemplate).execute("ALTER TABLE transfer DETACH PARTITION transfer_p20261016 CONCURRENTLY");
+        verify(jdbcTemplate).execute("DROP TABLE transfer_p20261016");
+        // Still holds rows newer than the cutoff (2026-10-17 07:30)
+        verify(jdbcTemplate, never()).execute("DROP TABLE transfer_p20261017");
+        // so keys are only expired up to its start
+        verify(jdbcTemplate).update(startsWith("DELETE FROM transfer_key WHERE transfer_id IN"), eq(LocalDateTime.of(2026, 10, 17, 0, 0)), eq(1000));
+    }
+
+    @Test
+    void maintainPartitions_withDefaultPartition_detachesPlainlyAndCleansItUp() {
+        JdbcTemplate jdbcTemplate = jdbcTemplate(List.of(new TransferPartitionManager.Partition("transfer_default", true),
+                new TransferPartitionManager.Partition("transfer_p20261016", false)));
+        TransferPartitionManager manager = new TransferPartitionManager(jdbcTemplate, Duration.ofHours(24), ChronoUnit.DAYS, 2, true, 1000);
+
+        manager.maintainPartitions();
+
+        verify(jdbcTemplate).execute("ALTER TABLE transfer DETACH PARTITION transfer_p20261016");
+        verify(jdbcTemplate).execute("DROP TABLE transfer_p20261016");
+        verify(jdbcTemplate, never()).execute("DROP TABLE transfer_default");
+        verify(jdbcTemplate).update(startsWith("DELETE FROM transfer_default WHERE id IN"), eq(LocalDateTime.of(2026, 10, 17, 7, 30)), eq(1000));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JdbcTemplate jdbcTemplate(List<TransferPartitionManager.Partition> partitions) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class))
+                .thenReturn(LocalDateTime.of(2026, 10, 18, 7, 30));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(partitions);
+        return jdbcTemplate;
+    }
+}
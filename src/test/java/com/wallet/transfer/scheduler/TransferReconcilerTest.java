@@ -0,0 +1,120 @@
+package com.wallet.transfer.scheduler;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.repository.TransferRepository;
+import com.wallet.transfer.service.TransferServiceProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferReconcilerTest {
+    private final TransferRepository repository = mock(TransferRepository.class);
+    private final TransferServiceProcessor processor = mock(TransferServiceProcessor.class);
+    private TransferReconciler reconciler;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (reconciler != null) {
+            reconciler.destroy();
+        }
+    }
+
+    @Test
+    void reconcile_resubmitsUnknownThenStalePendingWithinTheBatch() {
+        LocalDateTime created = LocalDateTime.now().minusHours(1);
+        Transfer unknown = transfer(7L, "K-7", TransferStatus.UNKNOWN, created);
+        Transfer pending = transfer(9L, "K-9", TransferStatus.PENDING, created);
+        when(repository.findUnresolvedAfter(eq(TransferStatus.UNKNOWN), any(LocalDateTime.class), eq(0L), eq(2L), eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(unknown));
+        when(repository.findUnresolvedAfter(eq(TransferStatus.PENDING), any(LocalDateTime.class), eq(0L), eq(2L), eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(pending));
+        when(repository.findOldestCreatedAt(anyCollection(), eq(2L), eq(1L))).thenReturn(Optional.of(created));
+        when(processor.resolveTransfer(any(TransferRequestDTO.class), eq("K-7"), eq(TransferStatus.UNKNOWN), anyLong()))
+                .thenReturn(new TransferServiceProcessor.Resolution(TransferResultDTO.failure("K-7", null), true));
+        when(processor.resolveTransfer(any(TransferRequestDTO.class), eq("K-9"), eq(TransferStatus.PENDING), anyLong()))
+                .thenThrow(new ResourceAccessException("ledger down"));
+
+        reconciler = new TransferReconciler(processor, repository, 2, 2, 1, 2, Duration.ofSeconds(10), Duration.ofMinutes(10));
+        reconciler.reconcile();
+
+        verify(processor).resolveTransfer(new TransferRequestDTO(1L, 2L, BigDecimal.TEN), "K-7", TransferStatus.UNKNOWN, 1L);
+        assertEquals(1, reconciler.getResolved());
+        assertEquals(1, reconciler.getUnresolved());
+        assertTrue(reconciler.getLagMillis() >= Duration.ofHours(1).toMillis());
+    }
+
+    @Test
+    void reconcile_continuesAfterAFullPage() {
+        LocalDateTime created = LocalDateTime.now().minusMinutes(1);
+        when(repository.findUnresolvedAfter(eq(TransferStatus.UNKNOWN), any(LocalDateTime.class), anyLong(), eq(1L), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(transfer(3L, "K-3", TransferStatus.UNKNOWN, created)))
+                .thenReturn(List.of());
+        when(repository.findOldestCreatedAt(anyCollection(), eq(1L), eq(0L))).thenReturn(Optional.empty());
+        when(processor.resolveTransfer(any(TransferRequestDTO.class), any(), any(), anyLong()))
+                .thenThrow(new ResourceAccessException("ledger down"));
+
+        reconciler = new TransferReconciler(processor, repository, 1, 1, 0, 1, Duration.ofSeconds(10), Duration.ofMinutes(10));
+        reconciler.reconcile();
+        reconciler.reconcile();
+
+        // The unresolved transfer does not hold up the ones behind it
+        verify(repository).findUnresolvedAfter(eq(TransferStatus.UNKNOWN), any(LocalDateTime.class), eq(3L), eq(1L), eq(0L), any(Pageable.class));
+        assertEquals(0, reconciler.getLagMillis());
+    }
+
+    @Test
+    void reconcile_transferFinalizedElsewhere_isNotCountedAsResolved() {
+        Transfer unknown = transfer(5L, "K-5", TransferStatus.UNKNOWN, LocalDateTime.now().minusMinutes(1));
+        when(repository.findUnresolvedAfter(eq(TransferStatus.UNKNOWN), any(LocalDateTime.class), eq(0L), eq(1L), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(unknown));
+        when(repository.findOldestCreatedAt(anyCollection(), eq(1L), eq(0L))).thenReturn(Optional.empty());
+        when(processor.resolveTransfer(any(TransferRequestDTO.class), eq("K-5"), eq(TransferStatus.UNKNOWN), anyLong()))
+                .thenReturn(new TransferServiceProcessor.Resolution(TransferResultDTO.failure("K-5", null), false));
+
+        reconciler = new TransferReconciler(processor, repository, 10, 1, 0, 1, Duration.ofSeconds(10), Duration.ofMinutes(10));
+        reconciler.reconcile();
+
+        assertEquals(0, reconciler.getResolved());
+        assertEquals(1, reconciler.getSuperseded());
+    }
+
+    @Test
+    void nodeIndexOutsideNodeCount_isRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new TransferReconciler(processor, repository, 1, 1, 2, 2, Duration.ofSeconds(10), Duration.ofMinutes(10)));
+    }
+
+    private static Transfer transfer(long id, String transferId, String status, LocalDateTime createdAt) {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setTransferId(transferId);
+        transfer.setFromAccountId(1L);
+        transfer.setToAccountId(2L);
+        transfer.setAmount(BigDecimal.TEN);
+        transfer.setStatus(status);
+        transfer.setVersion(TransferStatus.UNKNOWN.equals(status) ? 1L : 0L);
+        transfer.setCreatedAt(createdAt);
+        return transfer;
+    }
+}
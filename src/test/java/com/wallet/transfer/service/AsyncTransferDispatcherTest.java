@@ -0,0 +1,113 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.repository.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncTransferDispatcherTest {
+    private final TransferServiceProcessor processor = mock(TransferServiceProcessor.class);
+    private final TransferRepository repository = mock(TransferRepository.class);
+    private AsyncTransferDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.destroy();
+    }
+
+    @Test
+    void fullQueueWithCallerRuns_returnsTheFinalResult() throws InterruptedException {
+        dispatcher = new AsyncTransferDispatcher(processor, repository, 1, 1, "caller-runs", Duration.ofSeconds(1), Duration.ofMinutes(5));
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(processor.claimTransfer(eq(request), any())).thenReturn(Optional.empty());
+        when(processor.executeClaimedTransfer(request, "busy")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        TransferResultDTO success = new TransferResultDTO();
+        success.setTransferId("caller");
+        success.setStatus("success");
+        when(processor.executeClaimedTransfer(request, "caller")).thenReturn(success);
+
+        // One transfer occupies the worker and one fills the queue
+        assertEquals(TransferStatus.PENDING, dispatcher.submit(request, "busy").getStatus());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(TransferStatus.PENDING, dispatcher.submit(request, "queued").getStatus());
+
+        assertEquals("success", dispatcher.submit(request, "caller").getStatus());
+        release.countDown();
+    }
+
+    @Test
+    void recovery_requeuesOnlyStalePendingTransfers() {
+        dispatcher = new AsyncTransferDispatcher(processor, repository, 1, 10, "abort", Duration.ofSeconds(1), Duration.ofMinutes(5));
+        when(repository.findUnresolvedAfter(eq(TransferStatus.PENDING), any(LocalDateTime.class), anyLong(), eq(1L), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        dispatcher.recoverPendingTransfers();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).findUnresolvedAfter(eq(TransferStatus.PENDING), cutoff.capture(), eq(0L), eq(1L), eq(0L), any(Pageable.class));
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusMinutes(4)), "rows younger than recovery-min-age must be left alone");
+    }
+
+    @Test
+    void recovery_skipsTransfersAlreadyQueuedOnThisNode() throws InterruptedException {
+        dispatcher = new AsyncTransferDispatcher(processor, repository, 1, 10, "abort", Duration.ofSeconds(1), Duration.ofMinutes(5));
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(processor.claimTransfer(eq(request), any())).thenReturn(Optional.empty());
+        when(processor.executeClaimedTransfer(request, "busy")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        dispatcher.submit(request, "busy");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        dispatcher.submit(request, "queued");
+        when(repository.findUnresolvedAfter(eq(TransferStatus.PENDING), any(LocalDateTime.class), anyLong(), eq(1L), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(transfer(1L, "busy"), transfer(2L, "queued"), transfer(3L, "left-behind")));
+
+        dispatcher.recoverPendingTransfers();
+
+        assertEquals(2, dispatcher.getQueueDepth(), "only the transfer no worker owns is queued again");
+        release.countDown();
+    }
+
+    private static Transfer transfer(long id, String transferId) {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setTransferId(transferId);
+        transfer.setFromAccountId(1L);
+        transfer.setToAccountId(2L);
+        transfer.setAmount(BigDecimal.TEN);
+        transfer.setStatus(TransferStatus.PENDING);
+        return transfer;
+    }
+}
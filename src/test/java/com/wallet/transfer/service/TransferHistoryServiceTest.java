@@ -0,0 +1,106 @@
+package com.wallet.transfer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wallet.transfer.dto.TransferHistoryDTO;
+import com.wallet.transfer.dto.TransferHistoryPageDTO;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.repository.TransferHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferHistoryServiceTest {
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 30, 0, 123_456_000);
+
+    @Mock
+    private TransferHistoryRepository transferHistoryRepository;
+
+    private TransferHistoryService transferHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferHistoryService = new TransferHistoryService(transferHistoryRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()), 2, 10, 100, 1, Duration.ofSeconds(30), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void getHistory_fullPage_returnsCursorOfLastRow() {
+        when(transferHistoryRepository.findPage(7L, null, null, 3))
+                .thenReturn(List.of(row(30L, T0.plusSeconds(2)), row(20L, T0), row(10L, T0.minusSeconds(1))));
+
+        TransferHistoryPageDTO page = transferHistoryService.getHistory(7L, null, null);
+
+        assertEquals(2, page.getTransfers().size());
+        TransferHistoryService.Cursor cursor = TransferHistoryService.decodeCursor(page.getNextCursor());
+        assertEquals(T0, cursor.createdAt());
+        assertEquals(20L, cursor.id());
+
+        when(transferHistoryRepository.findPage(7L, T0, 20L, 3)).thenReturn(List.of(row(10L, T0.minusSeconds(1))));
+        TransferHistoryPageDTO last = transferHistoryService.getHistory(7L, page.getNextCursor(), null);
+        assertEquals(1, last.getTransfers().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void getHistory_rejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> transferHistoryService.getHistory(7L, "not a cursor", null));
+        assertThrows(IllegalArgumentException.class, () -> transferHistoryService.getHistory(7L, null, 11));
+        assertThrows(IllegalArgumentException.class, () -> transferHistoryService.getHistory(0L, null, null));
+        verify(transferHistoryRepository, never()).findPage(anyLong(), any(), any(), anyInt());
+    }
+
+    @Test
+    void exportHistory_writesOneLinePerRow() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<TransferHistoryDTO> consumer = invocation.getArgument(3);
+            consumer.accept(row(2L, T0));
+            consumer.accept(row(1L, T0.minusSeconds(1)));
+            return null;
+        }).when(transferHistoryRepository).streamAll(eq(7L), eq(100), eq(Duration.ofSeconds(30)), any());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        transferHistoryService.exportHistory(7L, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"transferId\":\"t-2\""));
+    }
+
+    @Test
+    void openExport_beyondTheLimit_isRejectedUntilTheRunningExportIsWritten() throws Exception {
+        TransferHistoryService.HistoryExport running = transferHistoryService.openExport(7L);
+
+        assertThrows(ServiceOverloadedException.class, () -> transferHistoryService.openExport(8L));
+
+        running.writeTo(new ByteArrayOutputStream());
+        transferHistoryService.openExport(8L).writeTo(new ByteArrayOutputStream());
+    }
+
+    private static TransferHistoryDTO row(long id, LocalDateTime createdAt) {
+        return new TransferHistoryDTO(id, "t-" + id, 7L, 8L, BigDecimal.TEN, "success", createdAt);
+    }
+}
@@ -1,26 +1,42 @@
 package com.wallet.transfer.service;
 
 
+import com.wallet.transfer.client.LedgerClient;
 import com.wallet.transfer.dto.TransferRequestDTO;
 import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
 import com.wallet.transfer.entity.Transfer;
+import com.wallet.transfer.entity.TransferStatus;
+import com.wallet.transfer.repository.TransferBatchRepository;
 import com.wallet.transfer.repository.TransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.http.HttpEntity;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.ResourceAccessException;
 
 import java.math.BigDecimal;
-import java.net.URI;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,14 +44,19 @@ class TransferServiceProcessorTest {
     @Mock
     private TransferRepository transferRepository;
     @Mock
-    private RestTemplate restTemplate;
-    @InjectMocks
+    private TransferBatchRepository transferBatchRepository;
+    @Mock
+    private LedgerClient ledgerClient;
+    private TransferResultCache transferResultCache;
     private TransferServiceProcessor processor;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        processor = new TransferServiceProcessor(restTemplate, transferRepository, "http://api", "/transfer");
+        transferResultCache = new TransferResultCache(100, Duration.ofMinutes(1));
+        processor = new TransferServiceProcessor(ledgerClient, transferRepository, transferBatchRepository,
+                transferResultCache, new TransferMetrics(new SimpleMeterRegistry()),
+                Duration.ofMillis(200), 2, new StaticListableBeanFactory().getBeanProvider(TransferReplayBuffer.class));
     }
 
     @Test
@@ -48,7 +69,7 @@ class TransferServiceProcessorTest {
         TransferResultDTO ledgerResult = new TransferResultDTO();
         ledgerResult.setStatus("success");
 
-        when(restTemplate.postForObject(any(URI.class), any(HttpEntity.class), eq(TransferResultDTO.class)))
+        when(ledgerClient.transfer(any(TransferRequestDTO.class), any()))
                 .thenReturn(ledgerResult);
 
         Transfer saved = new Transfer();
@@ -79,7 +100,236 @@ class TransferServiceProcessorTest {
 
         assertEquals("success", result.getStatus());
         assertEquals(idempotencyKey, result.getTransferId());
-        verify(restTemplate, never()).postForObject(any(), any(), eq(TransferResultDTO.class));
+        verify(ledgerClient, never()).transfer(any(), any());
+    }
+
+    @Test
+    void processTransfer_claimsPendingThenFinalizes() {
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setFromAccountId(1L);
+        request.setToAccountId(2L);
+        request.setAmount(BigDecimal.TEN);
+
+        String idempotencyKey = "NEW-KEY";
+        TransferResultDTO ledgerResult = new TransferResultDTO();
+        ledgerResult.setStatus("success");
+
+        when(transferRepository.insertIfAbsent(idempotencyKey, 1L, 2L, BigDecimal.TEN, TransferStatus.PENDING)).thenReturn(1);
+        when(ledgerClient.transfer(any(TransferRequestDTO.class), any()))
+                .thenReturn(ledgerResult);
+
+        TransferResultDTO result = processor.processTransfer(request, idempotencyKey);
+
+        assertEquals("success", result.getStatus());
+        assertEquals(idempotencyKey, result.getTransferId());
+        InOrder inOrder = inOrder(transferRepository, ledgerClient);
+        inOrder.verify(transferRepository).insertIfAbsent(idempotencyKey, 1L, 2L, BigDecimal.TEN, TransferStatus.PENDING);
+        inOrder.verify(ledgerClient).transfer(request, idempotencyKey);
+        inOrder.verify(transferRepository).updateStatus(idempotencyKey, TransferStatus.PENDING, "success");
+    }
+
+    @Test
+    void processTransfer_ledgerError_releasesClaim() {
+        TransferRequestDTO request = new TransferRequestDTO();
+        request.setFromAccountId(1L);
+        request.setToAccountId(2L);
+        request.setAmount(BigDecimal.TEN);
+
+        String idempotencyKey = "FAILING-KEY";
+        when(transferRepository.insertIfAbsent(idempotencyKey, 1L, 2L, BigDecimal.TEN, TransferStatus.PENDING)).thenReturn(1);
+        when(ledgerClient.transfer(any(TransferRequestDTO.class), any()))
+                .thenThrow(new ResourceAccessException("ledger down"));
+
+        assertThrows(ResourceAccessException.class, () -> processor.processTransfer(request, idempotencyKey));
+        verify(transferRepository).deleteByTransferIdAndStatus(idempotencyKey, TransferStatus.PENDING);
+        verify(transferRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void processClaimedTransfer_ledgerError_releasesTheClaimWithoutClaimingAgain() {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        String idempotencyKey = "LANE-KEY";
+        when(ledgerClient.transfer(any(TransferRequestDTO.class), any()))
+                .thenThrow(new ResourceAccessException("ledger down"));
+
+        assertThrows(ResourceAccessException.class, () -> processor.processClaimedTransfer(request, idempotencyKey));
+        verify(transferRepository, never()).insertIfAbsent(any(), any(), any(), any(), any());
+        verify(transferRepository).deleteByTransferIdAndStatus(idempotencyKey, TransferStatus.PENDING);
+        verify(transferRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void processTransfer_readTimeout_marksUnknownAndKeepsTheKey() {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        String idempotencyKey = "TIMEOUT-KEY";
+        when(transferRepository.insertIfAbsent(idempotencyKey, 1L, 2L, BigDecimal.TEN, TransferStatus.PENDING)).thenReturn(1);
+        when(ledgerClient.transfer(any(TransferRequestDTO.class), any()))
+                .thenThrow(new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")));
+
+        assertThrows(ResourceAccessException.class, () -> processor.processTransfer(request, idempotencyKey));
+        verify(transferRepository).updateStatus(idempotencyKey, TransferStatus.PENDING, TransferStatus.UNKNOWN);
+        verify(transferRepository, never()).deleteByTransferIdAndStatus(any(), any());
+    }
+
+    @Test
+    void resolveTransfer_finalizesGuardedOnTheStatusItWasReadIn() {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        TransferResultDTO ledgerResult = new TransferResultDTO();
+        ledgerResult.setStatus("success");
+        when(ledgerClient.transfer(request, "UNKNOWN-KEY")).thenReturn(ledgerResult);
+        when(transferRepository.updateStatus("UNKNOWN-KEY", TransferStatus.UNKNOWN, "success")).thenReturn(1);
+
+        TransferServiceProcessor.Resolution resolution = processor.resolveTransfer(request, "UNKNOWN-KEY", TransferStatus.UNKNOWN, 1L);
+
+        assertTrue(resolution.finalized());
+        assertEquals("success", resolution.result().getStatus());
+        assertEquals(new TransferStatusDTO("UNKNOWN-KEY", "success", 2L), processor.getTransferStatus("UNKNOWN-KEY"));
+    }
+
+    @Test
+    void resolveTransfer_lostRace_returnsTheStoredStatus() {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        TransferResultDTO ledgerResult = new TransferResultDTO();
+        ledgerResult.setStatus("success");
+        when(ledgerClient.transfer(request, "RACED-KEY")).thenReturn(ledgerResult);
+        when(transferRepository.updateStatus("RACED-KEY", TransferStatus.PENDING, "success")).thenReturn(0);
+        TransferRepository.StatusView stored = mock(TransferRepository.StatusView.class);
+        when(stored.getStatus()).thenReturn(TransferStatus.UNKNOWN);
+        when(transferRepository.findStatusByTransferId("RACED-KEY")).thenReturn(Optional.of(stored));
+
+        TransferServiceProcessor.Resolution resolution = processor.resolveTransfer(request, "RACED-KEY", TransferStatus.PENDING, 0L);
+
+        assertFalse(resolution.finalized());
+        assertEquals(TransferStatus.UNKNOWN, resolution.result().getStatus());
+    }
+
+    @Test
+    void processTransfer_concurrentClaim_waitsForWinnerResult() {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        String idempotencyKey = "CONTENDED-KEY";
+        Transfer pending = new Transfer();
+        pending.setTransferId(idempotencyKey);
+        pending.setStatus(TransferStatus.PENDING);
+        Transfer finalized = new Transfer();
+        finalized.setTransferId(idempotencyKey);
+        finalized.setStatus("success");
+
+        when(transferRepository.insertIfAbsent(any(), any(), any(), any(), any())).thenReturn(0);
+        when(transferRepository.findByTransferId(idempotencyKey))
+                .thenReturn(Optional.of(pending))
+                .thenReturn(Optional.of(finalized));
+
+        TransferResultDTO result = processor.processTransfer(request, idempotencyKey);
+
+        assertEquals("success", result.getStatus());
+        assertEquals(idempotencyKey, result.getTransferId());
+        verify(ledgerClient, never()).transfer(any(), any());
+    }
+
+    @Test
+    void processTransfer_keyReservedWithoutRow_backsOffThenFails() {
+        TransferRequestDTO request = new TransferRequestDTO(1L, 2L, BigDecimal.TEN);
+        when(transferRepository.insertIfAbsent(any(), any(), any(), any(), any())).thenReturn(0);
+        when(transferRepository.findByTransferId("ORPHAN-KEY")).thenReturn(Optional.empty());
+
+        long start = System.nanoTime();
+        assertThrows(IllegalStateException.class, () -> processor.processTransfer(request, "ORPHAN-KEY"));
+
+        // Waits out the 200 ms claim timeout with backoff instead of spinning on the primary
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 200);
+        verify(transferRepository, atMost(10)).insertIfAbsent(any(), any(), any(), any(), any());
+        verify(ledgerClient, never()).transfer(any(), any());
+    }
+
+    @Test
+    void getTransferStatus_finalStatusServedFromCache() {
+        String transferId = "T-CACHED";
+        when(transferRepository.findStatusByTransferId(transferId)).thenReturn(Optional.of(statusView("success", 1L)));
+
+        assertEquals("success", processor.getTransferStatus(transferId).getStatus());
+        TransferStatusDTO cached = processor.getTransferStatus(transferId);
+        assertEquals("success", cached.getStatus());
+        assertEquals(1L, cached.getVersion());
+
+        verify(transferRepository, times(1)).findStatusByTransferId(transferId);
+        verify(transferRepository, never()).findByTransferId(any());
+    }
+
+    @Test
+    void getTransferStatus_pendingStatusNotCached() {
+        String transferId = "T-PENDING";
+        when(transferRepository.findStatusByTransferId(transferId)).thenReturn(Optional.of(statusView(TransferStatus.PENDING, 0L)));
+
+        assertEquals(TransferStatus.PENDING, processor.getTransferStatus(transferId).getStatus());
+        assertEquals(TransferStatus.PENDING, processor.getTransferStatus(transferId).getStatus());
+
+        verify(transferRepository, times(2)).findStatusByTransferId(transferId);
+    }
+
+    @Test
+    void getTransferStatus_replicaMiss_fallsBackToPrimary() {
+        String transferId = "T-LAGGING-STATUS";
+        when(transferRepository.findStatusByTransferId(transferId))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(statusView(TransferStatus.PENDING, 0L)));
+
+        TransferStatusDTO status = processor.getTransferStatus(transferId);
+
+        assertEquals(TransferStatus.PENDING, status.getStatus());
+        assertEquals(0L, status.getVersion());
+        verify(transferRepository, times(2)).findStatusByTransferId(transferId);
+    }
+
+    @Test
+    void getTransferStatuses_queriesInChunksAndFallsBackToPrimaryForMisses() {
+        when(transferRepository.findStatusesByTransferIdIn(List.of("a", "b")))
+                .thenReturn(List.of(idStatusView("a", "success", 1L)));
+        when(transferRepository.findStatusesByTransferIdIn(List.of("b")))
+                .thenReturn(List.of(idStatusView("b", TransferStatus.PENDING, 0L)));
+        when(transferRepository.findStatusesByTransferIdIn(List.of("c"))).thenReturn(List.of());
+
+        Map<String, TransferStatusDTO> statuses = processor.getTransferStatuses(List.of("a", "b", "c"));
+
+        assertEquals(2, statuses.size());
+        assertEquals("success", statuses.get("a").getStatus());
+        assertEquals(TransferStatus.PENDING, statuses.get("b").getStatus());
+        // "a" is final and now cached, so only the pending and unknown ids are read again
+        processor.getTransferStatuses(List.of("a", "b", "c"));
+        verify(transferRepository, times(1)).findStatusesByTransferIdIn(List.of("a", "b"));
+        verify(transferRepository, times(2)).findStatusesByTransferIdIn(List.of("b", "c"));
+    }
+
+    private static TransferRepository.TransferIdStatusView idStatusView(String transferId, String status, Long version) {
+        return new TransferRepository.TransferIdStatusView() {
+            @Override
+            public String getTransferId() {
+                return transferId;
+            }
+
+            @Override
+            public String getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+
+    private static TransferRepository.StatusView statusView(String status, Long version) {
+        return new TransferRepository.StatusView() {
+            @Override
+            public String getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
     }
 
     @Test
@@ -97,6 +347,42 @@ class TransferServiceProcessorTest {
         assertEquals("success", result.getStatus());
     }
 
+    @Test
+    void finalizeTransfers_insideATransaction_cachesTheResultOnlyOnceItCommits() {
+        TransferResultDTO ledgerResult = new TransferResultDTO();
+        ledgerResult.setStatus("success");
+        when(transferBatchRepository.finalizeAndRelease(any(), any())).thenReturn(new int[]{1});
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            processor.finalizeTransfers(Map.of("OUTBOX-KEY", ledgerResult), List.of());
+            // A rollback here would leave the row queued, so nothing may be cached yet
+            assertTrue(transferResultCache.get("OUTBOX-KEY").isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("success", transferResultCache.get("OUTBOX-KEY").orElseThrow().getStatus());
+    }
+
+    @Test
+    void getTransferById_replicaMiss_fallsBackToPrimary() {
+        String transferId = "T-LAGGING";
+        Transfer transfer = new Transfer();
+        transfer.setTransferId(transferId);
+        transfer.setStatus("success");
+
+        // First lookup runs against the replica, which has not seen the row yet
+        when(transferRepository.findByTransferId(transferId))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(transfer));
+
+        assertEquals("success", processor.getTransferById(transferId).getStatus());
+        verify(transferRepository, times(2)).findByTransferId(transferId);
+    }
+
     @Test
     void getTransferById_notFound() {
         String transferId = "NOT_FOUND";
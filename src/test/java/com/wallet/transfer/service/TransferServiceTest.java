@@ -0,0 +1,252 @@
+package com.wallet.transfer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.transfer.dto.BulkTransferStatusDTO;
+import com.wallet.transfer.dto.TransferRequestDTO;
+import com.wallet.transfer.dto.TransferResultDTO;
+import com.wallet.transfer.dto.TransferStatusDTO;
+import com.wallet.transfer.exception.ServiceOverloadedException;
+import com.wallet.transfer.util.StripedSerialExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferServiceTest {
+    @Mock
+    private TransferServiceProcessor processor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransferService transferService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferService = newTransferService(new StaticListableBeanFactory());
+    }
+
+    private TransferService newTransferService(StaticListableBeanFactory beans) {
+        return new TransferService(processor, new TransferSingleFlight(100, Duration.ofSeconds(1)), Runnable::run, objectMapper, 2, beans.getBeanProvider(TransferDispatcher.class),
+                new TransferMetrics(meterRegistry), 100, beans.getBeanProvider(StripedSerialExecutor.class), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void transferStream_writesOneResultPerRecord() throws Exception {
+        when(processor.processTransfer(any(TransferRequestDTO.class), eq("k1"))).thenReturn(result("k1", "success"));
+        when(processor.processTransfer(any(TransferRequestDTO.class), eq("k2"))).thenReturn(result("k2", "success"));
+        String input = """
+                {"idempotencyKey":"k1","fromAccountId":1,"toAccountId":2,"amount":10}
+                not-json
+
+                {"idempotencyKey":"k2","fromAccountId":3,"toAccountId":4,"amount":5}
+                {"idempotencyKey":"k3","fromAccountId":5,"toAccountId":5,"amount":5}
+                """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        transferService.transferStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+
+        List<TransferResultDTO> results = output.toString(StandardCharsets.UTF_8).lines()
+                .map(this::readResult)
+                .toList();
+        assertEquals(4, results.size());
+        Map<String, TransferResultDTO> byKey = results.stream()
+                .filter(r -> r.getTransferId() != null)
+                .collect(Collectors.toMap(TransferResultDTO::getTransferId, Function.identity()));
+        assertEquals("success", byKey.get("k1").getStatus());
+        assertEquals("success", byKey.get("k2").getStatus());
+        assertEquals("failure", byKey.get("k3").getStatus());
+        assertNotNull(byKey.get("k3").getError());
+        verify(processor, never()).processTransfer(any(TransferRequestDTO.class), eq("k3"));
+    }
+
+    @Test
+    void getTransferStatuses_keepsRequestOrderAndReportsUnknownIds() throws Exception {
+        when(processor.getTransferStatuses(any())).thenReturn(Map.of(
+                "t1", new TransferStatusDTO("t1", "success", 1L),
+                "t3", new TransferStatusDTO("t3", "pending", 0L)));
+
+        BulkTransferStatusDTO result = transferService.getTransferStatuses(
+                new ByteArrayInputStream("t3\n\n t1\nt2\nt3\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("t3", "t1"), List.copyOf(result.getStatuses().keySet()));
+        assertEquals("success", result.getStatuses().get("t1"));
+        assertEquals(List.of("t2"), result.getUnknown());
+        verify(processor).getTransferStatuses(Set.of("t1", "t2", "t3"));
+    }
+
+    @Test
+    void getTransferStatuses_rejectsTooManyIds() {
+        List<String> transferIds = IntStream.rangeClosed(1, 101).mapToObj(i -> "t" + i).toList();
+
+        assertThrows(IllegalArgumentException.class, () -> transferService.getTransferStatuses(transferIds));
+        verify(processor, never()).getTransferStatuses(any());
+    }
+
+    @Test
+    void transferBatch_withLanes_callsLedgerInRequestOrderPerAccount() {
+        Map<Long, List<String>> callsByAccount = new ConcurrentHashMap<>();
+        Map<Long, AtomicInteger> activeByAccount = new ConcurrentHashMap<>();
+        AtomicInteger maxActivePerAccount = new AtomicInteger();
+        when(processor.claimTransfers(any())).thenReturn(Map.of());
+        when(processor.callLedger(any(TransferRequestDTO.class), any())).thenAnswer(invocation -> {
+            TransferRequestDTO request = invocation.getArgument(0);
+            String idempotencyKey = invocation.getArgument(1);
+            AtomicInteger active = activeByAccount.computeIfAbsent(request.getFromAccountId(), id -> new AtomicInteger());
+            maxActivePerAccount.accumulateAndGet(active.incrementAndGet(), Math::max);
+            callsByAccount.computeIfAbsent(request.getFromAccountId(), id -> new CopyOnWriteArrayList<>()).add(idempotencyKey);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return result(idempotencyKey, "success");
+        });
+        when(processor.finalizeTransfers(any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        try (StripedSerialExecutor lanes = new StripedSerialExecutor(Executors.newFixedThreadPool(4), 4, 10)) {
+            beans.addBean("transferLaneExecutor", lanes);
+            TransferService laneService = newTransferService(beans);
+
+            List<TransferResultDTO> results = laneService.transferBatch(
+                    List.of(new TransferRequestDTO(1L, 9L, BigDecimal.ONE), new TransferRequestDTO(2L, 9L, BigDecimal.ONE),
+                            new TransferRequestDTO(1L, 9L, BigDecimal.TEN), new TransferRequestDTO(2L, 9L, BigDecimal.TEN),
+                            new TransferRequestDTO(1L, 8L, BigDecimal.ONE)),
+                    List.of("a1", "b1", "a2", "b2", "a3"));
+
+            assertEquals(List.of("a1", "b1", "a2", "b2", "a3"), results.stream().map(TransferResultDTO::getTransferId).toList());
+            assertEquals(List.of("a1", "a2", "a3"), callsByAccount.get(1L));
+            assertEquals(List.of("b1", "b2"), callsByAccount.get(2L));
+            assertEquals(1, maxActivePerAccount.get());
+        }
+    }
+
+    @Test
+    void transfer_timesTheValidator() {
+        when(processor.processTransfer(any(TransferRequestDTO.class), eq("k1"))).thenReturn(result("k1", "success"));
+
+        transferService.transfer(new TransferRequestDTO(1L, 2L, BigDecimal.TEN), "k1");
+        assertThrows(IllegalArgumentException.class, () -> transferService.transfer(new TransferRequestDTO(1L, 1L, BigDecimal.TEN), "k2"));
+
+        assertEquals(2, meterRegistry.get("transfer.phase").tag("phase", "validation").timer().count());
+    }
+
+    @Test
+    void transfer_withLanes_keepsTheCallersMdcOnTheLaneThread() {
+        AtomicReference<String> laneCorrelationId = new AtomicReference<>();
+        when(processor.claimTransfer(any(TransferRequestDTO.class), eq("k1"))).thenReturn(Optional.empty());
+        when(processor.processClaimedTransfer(any(TransferRequestDTO.class), eq("k1"))).thenAnswer(invocation -> {
+            laneCorrelationId.set(MDC.get("correlationId"));
+            return result("k1", "success");
+        });
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        try (StripedSerialExecutor lanes = new StripedSerialExecutor(Executors.newFixedThreadPool(1), 1, 10)) {
+            beans.addBean("transferLaneExecutor", lanes);
+            MDC.put("correlationId", "corr-1");
+
+            newTransferService(beans).transfer(new TransferRequestDTO(1L, 2L, BigDecimal.TEN), "k1");
+
+            assertEquals("corr-1", laneCorrelationId.get());
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    @Test
+    void transfer_withLanes_claimsOnTheCallerThreadAndAnswersDuplicatesWithoutTheLane() {
+        AtomicReference<Thread> claimThread = new AtomicReference<>();
+        when(processor.claimTransfer(any(TransferRequestDTO.class), eq("k1"))).thenAnswer(invocation -> {
+            claimThread.set(Thread.currentThread());
+            return Optional.of(result("k1", "success"));
+        });
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        try (StripedSerialExecutor lanes = new StripedSerialExecutor(Executors.newFixedThreadPool(1), 1, 10)) {
+            beans.addBean("transferLaneExecutor", lanes);
+
+            TransferResultDTO result = newTransferService(beans).transfer(new TransferRequestDTO(1L, 2L, BigDecimal.TEN), "k1");
+
+            assertEquals("success", result.getStatus());
+            assertEquals(Thread.currentThread(), claimThread.get());
+            verify(processor, never()).processClaimedTransfer(any(), any());
+            verify(processor, never()).processTransfer(any(TransferRequestDTO.class), any());
+        }
+    }
+
+    @Test
+    void transfer_withLanes_releasesTheClaimWhenTheLaneIsFull() throws Exception {
+        when(processor.claimTransfer(any(TransferRequestDTO.class), any())).thenReturn(Optional.empty());
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        try (StripedSerialExecutor lanes = new StripedSerialExecutor(Executors.newFixedThreadPool(1), 1, 1)) {
+            beans.addBean("transferLaneExecutor", lanes);
+            // Hold the only lane busy, with its single queue slot taken
+            lanes.submit(1L, () -> {
+                running.countDown();
+                awaitQuietly(release);
+                return null;
+            });
+            running.await();
+            lanes.submit(1L, () -> null);
+            TransferService laneService = newTransferService(beans);
+
+            assertThrows(ServiceOverloadedException.class,
+                    () -> laneService.transfer(new TransferRequestDTO(1L, 2L, BigDecimal.TEN), "k1"));
+            verify(processor).releaseClaim("k1");
+            verify(processor, never()).processClaimedTransfer(any(), any());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TransferResultDTO readResult(String line) {
+        try {
+            return objectMapper.readValue(line, TransferResultDTO.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TransferResultDTO result(String transferId, String status) {
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(transferId);
+        result.setStatus(status);
+        return result;
+    }
+}
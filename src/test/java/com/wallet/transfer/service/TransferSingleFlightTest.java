@@ -0,0 +1,145 @@
+package com.wallet.transfer.service;
+
+import com.wallet.transfer.dto.TransferResultDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransferSingleFlightTest {
+
+    @Test
+    void concurrentCallsWithSameKey_executeOnce() throws Exception {
+        TransferSingleFlight singleFlight = new TransferSingleFlight(100, Duration.ofSeconds(5));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<TransferResultDTO>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                executions.incrementAndGet();
+                await(release);
+                return result("key", "success");
+            })));
+        }
+        while (singleFlight.getFollowers() < callers - 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (Future<TransferResultDTO> result : results) {
+            assertEquals("success", result.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        executor.shutdown();
+        assertEquals(1, executions.get());
+        assertEquals(1, singleFlight.getLeaders());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void followerTimesOut_processesDirectly() throws Exception {
+        TransferSingleFlight singleFlight = new TransferSingleFlight(100, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<TransferResultDTO> leader = executor.submit(() -> singleFlight.execute("slow", () -> {
+            await(release);
+            return result("slow", "success");
+        }));
+        while (singleFlight.getInFlight() == 0) {
+            Thread.onSpinWait();
+        }
+
+        TransferResultDTO follower = singleFlight.execute("slow", () -> result("slow", "pending"));
+
+        assertEquals("pending", follower.getStatus());
+        assertEquals(1, singleFlight.getTimeouts());
+        release.countDown();
+        assertEquals("success", leader.get(5, TimeUnit.SECONDS).getStatus());
+        executor.shutdown();
+    }
+
+    @Test
+    void leaderFails_followersGetTheFailureWithoutRetrying() throws Exception {
+        TransferSingleFlight singleFlight = new TransferSingleFlight(100, Duration.ofSeconds(5));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<TransferResultDTO>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("failing", () -> {
+                executions.incrementAndGet();
+                await(release);
+                throw new IllegalStateException("ledger down");
+            })));
+        }
+        while (singleFlight.getFollowers() < callers - 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (Future<TransferResultDTO> result : results) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals("ledger down", failure.getCause().getMessage());
+        }
+        executor.shutdown();
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void batchWithAKeyInFlight_followsItAndProcessesTheRest() throws Exception {
+        TransferSingleFlight singleFlight = new TransferSingleFlight(100, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<TransferResultDTO> leader = executor.submit(() -> singleFlight.execute("k1", () -> {
+            await(release);
+            return result("k1", "success");
+        }));
+        while (singleFlight.getInFlight() == 0) {
+            Thread.onSpinWait();
+        }
+        List<Set<String>> calls = new ArrayList<>();
+
+        Map<String, TransferResultDTO> results = singleFlight.executeAll(List.of("k1", "k2"), keys -> {
+            calls.add(Set.copyOf(keys));
+            release.countDown();
+            return Map.of("k2", result("k2", "failure"));
+        });
+
+        assertEquals(List.of(Set.of("k2")), calls);
+        assertEquals("success", results.get("k1").getStatus());
+        assertEquals("failure", results.get("k2").getStatus());
+        assertEquals("success", leader.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(0, singleFlight.getInFlight());
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static TransferResultDTO result(String transferId, String status) {
+        TransferResultDTO result = new TransferResultDTO();
+        result.setTransferId(transferId);
+        result.setStatus(status);
+        return result;
+    }
+}
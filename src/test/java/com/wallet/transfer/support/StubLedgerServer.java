@@ -0,0 +1,205 @@
+package com.wallet.transfer.support;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process ledger used by tests and benchmarks.
+ * Answers {@code POST /api/ledger/transfer} with {@code {"transferId": <Idempotency-Key>, "status": "success"}}
+ * and {@code POST /api/ledger/transfer/bulk} with one such result per item.
+ * Latency is a fixed base plus an exponentially distributed jitter; a fraction of calls can be answered
+ * with HTTP 500 ({@link #setErrorRate}) or with {@code "status": "failure"} ({@link #setFailureRate}).
+ */
+public class StubLedgerServer implements AutoCloseable {
+    public static final String TRANSFER_API = "/api/ledger/transfer";
+    public static final String BULK_TRANSFER_API = "/api/ledger/transfer/bulk";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong transferRequests = new AtomicLong();
+    private final AtomicLong bulkRequests = new AtomicLong();
+    private final AtomicLong bulkItems = new AtomicLong();
+    private final AtomicLong errorResponses = new AtomicLong();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration jitter = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private volatile double failureRate;
+
+    private StubLedgerServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    public static StubLedgerServer start() throws IOException {
+        // Without TCP_NODELAY the JDK server adds ~40ms (Nagle + delayed ACK) to every keep-alive response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        StubLedgerServer stub = new StubLedgerServer(server, executor);
+        server.createContext(TRANSFER_API, exchange -> {
+            if (BULK_TRANSFER_API.equals(exchange.getRequestURI().getPath())) {
+                stub.handleBulkTransfer(exchange);
+            } else {
+                stub.handleTransfer(exchange);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatency(Duration latency) {
+        setLatency(latency, Duration.ZERO);
+    }
+
+    /**
+     * Every call sleeps {@code base} plus an exponentially distributed delay with mean {@code jitterMean},
+     * which gives the long right tail typical of a remote service.
+     */
+    public void setLatency(Duration base, Duration jitterMean) {
+        this.latency = base;
+        this.jitter = jitterMean;
+    }
+
+    /**
+     * Fraction of calls answered with HTTP 500, or the status set with {@link #setErrorStatus}, and no body.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * Fraction of calls (or bulk items) answered with {@code "status": "failure"}.
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public long getTransferRequests() {
+        return transferRequests.get();
+    }
+
+    public long getBulkRequests() {
+        return bulkRequests.get();
+    }
+
+    public long getBulkItems() {
+        return bulkItems.get();
+    }
+
+    public long getErrorResponses() {
+        return errorResponses.get();
+    }
+
+    private void handleTransfer(HttpExchange exchange) throws IOException {
+        transferRequests.incrementAndGet();
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+        sleep(nextLatency());
+        if (respondWithError(exchange)) {
+            return;
+        }
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        String transferId = key == null ? "null" : "\"" + key + "\"";
+        respond(exchange, "{\"transferId\":" + transferId + ",\"status\":\"" + nextStatus() + "\"}");
+    }
+
+    private void handleBulkTransfer(HttpExchange exchange) throws IOException {
+        bulkRequests.incrementAndGet();
+        List<Map<String, Object>> items;
+        try (InputStream body = exchange.getRequestBody()) {
+            items = MAPPER.readValue(body, new TypeReference<>() {
+            });
+        }
+        bulkItems.addAndGet(items.size());
+        sleep(nextLatency());
+        if (respondWithError(exchange)) {
+            return;
+        }
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("transferId", item.get("idempotencyKey"));
+            result.put("status", nextStatus());
+            results.add(result);
+        }
+        respond(exchange, MAPPER.writeValueAsString(results));
+    }
+
+    private Duration nextLatency() {
+        Duration jitterMean = jitter;
+        if (jitterMean.isZero()) {
+            return latency;
+        }
+        double exponential = -Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return latency.plusNanos((long) (exponential * jitterMean.toNanos()));
+    }
+
+    private String nextStatus() {
+        return failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate ? "failure" : "success";
+    }
+
+    private boolean respondWithError(HttpExchange exchange) throws IOException {
+        if (errorRate <= 0 || ThreadLocalRandom.current().nextDouble() >= errorRate) {
+            return false;
+        }
+        errorResponses.incrementAndGet();
+        exchange.sendResponseHeaders(errorStatus, -1);
+        exchange.close();
+        return true;
+    }
+
+    static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.wallet.transfer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedExecutorTest {
+
+    @Test
+    void tasksBeyondTheCap_waitForAPermit() throws Exception {
+        try (BoundedExecutor executor = new BoundedExecutor(Executors.newFixedThreadPool(8), 2)) {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(20);
+                    running.decrementAndGet();
+                }, executor));
+            }
+
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+            assertEquals(2, maxRunning.get());
+            // A task's future completes just before its permit is released
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (executor.getInFlight() > 0) {
+                assertTrue(System.nanoTime() < deadline, "permits were not released");
+                sleep(5);
+            }
+        }
+    }
+
+    @Test
+    void interruptedWhileWaitingForAPermit_stillRunsTheTask() throws Exception {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        try (BoundedExecutor executor = new BoundedExecutor(Executors.newThreadPerTaskExecutor(task -> {
+            Thread thread = new Thread(task);
+            threads.add(thread);
+            return thread;
+        }), 1)) {
+            CountDownLatch holding = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> {
+                holding.countDown();
+                await(release);
+            });
+            // Otherwise the second task may take the only permit first
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> "ran", executor);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (threads.size() < 2 || threads.get(1).getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() < deadline, "second task never waited for a permit");
+                sleep(5);
+            }
+            threads.get(1).interrupt();
+
+            // The future completes instead of hanging a caller that joins it
+            assertEquals("ran", waiting.get(5, TimeUnit.SECONDS));
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.wallet.transfer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedSerialExecutorTest {
+
+    @Test
+    void sameKey_runsInSubmissionOrderWhileOtherKeysProceed() throws Exception {
+        try (StripedSerialExecutor executor = new StripedSerialExecutor(Executors.newFixedThreadPool(2), 2, 10)) {
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> order = new CopyOnWriteArrayList<>();
+            CompletableFuture<String> blocked = executor.submit(0, () -> {
+                await(release);
+                order.add("0a");
+                return "0a";
+            });
+            CompletableFuture<String> queued = executor.submit(2, () -> {
+                order.add("0b");
+                return "0b";
+            });
+
+            // Key 1 is on the other lane and is not held up by the blocked one
+            assertEquals("1a", executor.submit(1, () -> "1a").get(5, TimeUnit.SECONDS));
+            assertEquals(1, executor.getQueued());
+            release.countDown();
+
+            assertEquals("0b", queued.get(5, TimeUnit.SECONDS));
+            assertEquals("0a", blocked.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("0a", "0b"), order);
+        }
+    }
+
+    @Test
+    void fullLane_rejectsAndFailedTaskDoesNotStopTheLane() throws Exception {
+        try (StripedSerialExecutor executor = new StripedSerialExecutor(Executors.newFixedThreadPool(1), 1, 1)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> running = executor.submit(7, () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("ledger down");
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = executor.submit(7, () -> "next");
+
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(7, () -> "rejected"));
+            assertEquals(1, executor.getRejected());
+            release.countDown();
+
+            assertEquals("next", queued.get(5, TimeUnit.SECONDS));
+            assertTrue(running.isCompletedExceptionally());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}